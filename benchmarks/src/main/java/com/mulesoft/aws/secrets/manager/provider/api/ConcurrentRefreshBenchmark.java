@@ -0,0 +1,94 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.mule.runtime.config.api.dsl.model.properties.ConfigurationProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read throughput of cached keys with and without a thread that keeps rotating and reloading the secret.
+ * Compare {@code readersOnly:readerAlone} with {@code readWhileRefreshing:reader}: with snapshot publication the reader
+ * throughput should stay flat while refreshes run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentRefreshBenchmark {
+
+    private static final String SECRET_NAME = "benchmark/secret";
+
+    @Param({"100", "1000"})
+    public int keyCount;
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    private String[] cachedKeys;
+
+    private String refreshKey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, InMemorySecretsManagerClient.jsonPayload(keyCount));
+        cachedKeys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            cachedKeys[i] = AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX + "key" + i;
+        }
+        refreshKey = AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX
+                + AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX + "key0";
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        provider.getConfigurationProperty(cachedKeys[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Benchmark
+    @Group("readersOnly")
+    @GroupThreads(3)
+    public Optional<ConfigurationProperty> readerAlone() {
+        return provider.getConfigurationProperty(randomKey());
+    }
+
+    @Benchmark
+    @Group("readWhileRefreshing")
+    @GroupThreads(3)
+    public Optional<ConfigurationProperty> reader() {
+        return provider.getConfigurationProperty(randomKey());
+    }
+
+    @Benchmark
+    @Group("readWhileRefreshing")
+    @GroupThreads(1)
+    public Optional<ConfigurationProperty> refresher() {
+        client.rotate(SECRET_NAME);
+        return provider.getConfigurationProperty(refreshKey);
+    }
+
+    private String randomKey() {
+        return cachedKeys[ThreadLocalRandom.current().nextInt(cachedKeys.length)];
+    }
+}
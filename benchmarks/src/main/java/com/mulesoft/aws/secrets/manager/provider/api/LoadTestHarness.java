@@ -0,0 +1,225 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.mule.runtime.config.api.dsl.model.properties.ConfigurationPropertiesProvider;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
+
+/**
+ * End-to-end load test of the provider against a {@link LocalSecretsManagerServer}: each deployment creates a
+ * provider through the factory, as Mule does, with {@code secrets} secrets of {@code keys} keys, then resolves
+ * {@code placeholders} placeholders spread over the secrets from {@code threads} threads at once, like the
+ * configuration of an application being initialized. For every deployment it reports the time the factory took to
+ * return, the time until every placeholder was resolved, the p50/p99/max latency of a single resolution, the
+ * placeholders that could not be resolved, the Secrets Manager and STS calls made and the startup phases published
+ * by the provider.
+ * <p>
+ * {@code java -cp target/benchmarks.jar com.mulesoft.aws.secrets.manager.provider.api.LoadTestHarness
+ * [--secrets 20] [--keys 10] [--placeholders 200] [--threads 4] [--deployments 5] [--latency 20]
+ * [--quota 0] [--rotateEvery 0] [--cacheTtl 0] [--engine SYNC] [--httpClient APACHE] [--maxRequestsPerSecond 50]
+ * [--roleARN arn:aws:iam::000000000000:role/load-test]}
+ * <p>
+ * {@code latency} is the delay of every answer of the server in milliseconds, {@code quota} the calls per second it
+ * accepts before throttling and {@code rotateEvery} the period, in seconds, at which it rotates every secret. The
+ * other options are passed to the provider as the configuration parameters of the same name; with {@code roleARN}
+ * the deployments use a role connection, whose {@code AssumeRole} calls are also answered by the server.
+ */
+public final class LoadTestHarness {
+
+    private static final String REGION = "us-east-1";
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int secretCount = Integer.parseInt(options.getOrDefault("secrets", "20"));
+        int keyCount = Integer.parseInt(options.getOrDefault("keys", "10"));
+        int placeholderCount = Integer.parseInt(options.getOrDefault("placeholders", "200"));
+        int threadCount = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int deploymentCount = Integer.parseInt(options.getOrDefault("deployments", "5"));
+        long latency = Long.parseLong(options.getOrDefault("latency", "20"));
+        int quota = Integer.parseInt(options.getOrDefault("quota", "0"));
+        long rotateEvery = Long.parseLong(options.getOrDefault("rotateEvery", "0"));
+
+        try (LocalSecretsManagerServer server = new LocalSecretsManagerServer()) {
+            List<String> secretNames = new ArrayList<>();
+            for (int i = 0; i < secretCount; i++) {
+                String secretName = "load-test/secret-" + i;
+                server.putSecretString(secretName, InMemorySecretsManagerClient.jsonPayload(keyCount));
+                secretNames.add(secretName);
+            }
+            server.setLatency(Duration.ofMillis(latency));
+            server.setMaxRequestsPerSecond(quota);
+            if (rotateEvery > 0) {
+                server.rotateEvery(Duration.ofSeconds(rotateEvery));
+            }
+
+            List<String> placeholders = new ArrayList<>();
+            for (int i = 0; i < placeholderCount; i++) {
+                placeholders.add(AWS_SECRETS_PREFIX + secretNames.get(i % secretCount) + "/key" + (i / secretCount % keyCount));
+            }
+            Map<String, Map<String, String>> groups = configuration(options, server, secretNames);
+
+            System.out.printf("%d secrets of %d keys, %d placeholders on %d threads, %d ms latency, endpoint %s%n",
+                    secretCount, keyCount, placeholderCount, threadCount, latency, server.getEndpoint());
+            System.out.printf("%10s %12s %12s %10s %10s %10s %10s %10s %10s %10s %10s  %s%n", "deployment",
+                    "create (ms)", "resolve (ms)", "p50 (ms)", "p99 (ms)", "max (ms)", "unresolved", "GetValue",
+                    "Describe", "AssumeRole", "throttled", "startup phases (ms)");
+            ExecutorService lookupExecutor = Executors.newFixedThreadPool(threadCount);
+            try {
+                for (int deployment = 1; deployment <= deploymentCount; deployment++) {
+                    server.resetCounters();
+                    deploy(deployment, groups, placeholders, threadCount, lookupExecutor, server);
+                }
+            } finally {
+                lookupExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private static void deploy(int deployment, Map<String, Map<String, String>> groups, List<String> placeholders,
+                               int threadCount, ExecutorService lookupExecutor, LocalSecretsManagerServer server)
+            throws Exception {
+        long start = System.nanoTime();
+        ConfigurationPropertiesProvider provider = new AWSSecretsManagerConfigurationPropertiesProviderFactory()
+                .createProvider(new MapConfigurationParameters(groups), null);
+        long created = System.nanoTime();
+        if (provider == null) {
+            throw new IllegalStateException("The factory did not create a provider, see the log");
+        }
+        try {
+            long[] latencies = new long[placeholders.size()];
+            LongAdder unresolved = new LongAdder();
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                int first = thread;
+                lookups.add(lookupExecutor.submit(() -> {
+                    ready.await();
+                    for (int i = first; i < placeholders.size(); i += threadCount) {
+                        long lookupStart = System.nanoTime();
+                        if (!provider.getConfigurationProperty(placeholders.get(i)).isPresent()) {
+                            unresolved.increment();
+                        }
+                        latencies[i] = System.nanoTime() - lookupStart;
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+            long resolved = System.nanoTime();
+
+            Arrays.sort(latencies);
+            System.out.printf("%10d %12.1f %12.1f %10.2f %10.2f %10.2f %10d %10d %10d %10d %10d  %s%n", deployment,
+                    millis(created - start), millis(resolved - start), millis(percentile(latencies, 0.50)),
+                    millis(percentile(latencies, 0.99)), millis(latencies[latencies.length - 1]), unresolved.sum(),
+                    server.getSecretValueCalls(), server.describeSecretCalls(), server.assumeRoleCalls(),
+                    server.throttledCalls(), startupPhases(provider));
+        } finally {
+            ((AWSSecretsManagerConfigurationPropertiesProvider) provider).dispose();
+        }
+    }
+
+    /**
+     * Builds the parameter groups of a configuration pointing at the server, with the given options as
+     * Secrets Manager, role connection and advanced connection parameters.
+     */
+    private static Map<String, Map<String, String>> configuration(Map<String, String> options,
+                                                                  LocalSecretsManagerServer server,
+                                                                  List<String> secretNames) {
+        Map<String, String> secretsManager = new HashMap<>();
+        secretsManager.put(SECRET_NAMES, String.join(",", secretNames));
+        putIfPresent(secretsManager, options, CACHE_TTL);
+
+        Map<String, String> basicConnection = new HashMap<>();
+        basicConnection.put(AWS_REGION, REGION);
+        basicConnection.put(AWS_ACCESS_KEY, "AKIALOADTEST");
+        basicConnection.put(AWS_SECRET_KEY, "load-test");
+
+        Map<String, String> advancedConnection = new HashMap<>();
+        advancedConnection.put(AWS_CUSTOM_SERVICE_ENDPOINT, server.getEndpoint().toString());
+        advancedConnection.put(AWS_USE_DEFAULT_PROVIDER_CHAIN, "false");
+        putIfPresent(advancedConnection, options, AWS_ENGINE);
+        putIfPresent(advancedConnection, options, AWS_HTTP_CLIENT);
+        putIfPresent(advancedConnection, options, AWS_MAX_CONNECTIONS);
+        putIfPresent(advancedConnection, options, AWS_MAX_REQUESTS_PER_SECOND);
+        putIfPresent(advancedConnection, options, AWS_MAX_RETRIES);
+
+        Map<String, Map<String, String>> groups = new LinkedHashMap<>();
+        groups.put(SECRETS_MANAGER_PARAMETER_GROUP_NAME, secretsManager);
+        groups.put(AWS_BASIC_CONNECTION_PARAMETER_GROUP_NAME, basicConnection);
+        if (options.containsKey(AWS_ROLE_ARN)) {
+            Map<String, String> roleConnection = new HashMap<>();
+            roleConnection.put(AWS_ROLE_ARN, options.get(AWS_ROLE_ARN));
+            groups.put(AWS_ROLE_CONNECTION_PARAMETER_GROUP_NAME, roleConnection);
+        }
+        groups.put(AWS_ADVANCED_CONNECTION_PARAMETER_GROUP_NAME, advancedConnection);
+        return groups;
+    }
+
+    // reads the phases the way a monitoring client would, from the MXBean of the only registered provider
+    private static Map<String, Long> startupPhases(ConfigurationPropertiesProvider provider)
+            throws MalformedObjectNameException, InterruptedException {
+        ((AWSSecretsManagerConfigurationPropertiesProvider) provider).getWarmUp().join();
+        Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer()
+                .queryNames(new ObjectName(ProviderStatistics.JMX_DOMAIN + ":type=PropertiesProvider,*"), null);
+        if (names.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        ProviderStatisticsMXBean statistics = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                names.iterator().next(), ProviderStatisticsMXBean.class);
+        // the total is recorded once the warm-up future has completed its callbacks
+        for (int attempt = 0; attempt < 100 && !statistics.getStartupPhaseMillis().containsKey("total"); attempt++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return statistics.getStartupPhaseMillis();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --<option> <value> pairs, got " + Arrays.toString(args));
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static void putIfPresent(Map<String, String> parameters, Map<String, String> options, String name) {
+        if (options.containsKey(name)) {
+            parameters.put(name, options.get(name));
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+}
@@ -0,0 +1,115 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.mule.runtime.config.api.dsl.model.properties.ConfigurationProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of {@link AWSSecretsManagerConfigurationPropertiesProvider#getConfigurationProperty(String)}
+ * for the main lookup shapes, over secrets of 10 to 10,000 keys stored as string or binary.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyResolutionBenchmark {
+
+    private static final String SECRET_NAME = "benchmark/secret";
+
+    @Param({"10", "100", "1000", "10000"})
+    public int keyCount;
+
+    @Param({"STRING", "BINARY"})
+    public String payloadType;
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider warmProvider;
+
+    private String[] cachedKeys;
+
+    private String[] realTimeKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        String payload = InMemorySecretsManagerClient.jsonPayload(keyCount);
+        if ("BINARY".equals(payloadType)) {
+            client.putSecretBinary(SECRET_NAME, payload);
+        } else {
+            client.putSecretString(SECRET_NAME, payload);
+        }
+
+        cachedKeys = new String[keyCount];
+        realTimeKeys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            cachedKeys[i] = AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX + "key" + i;
+            realTimeKeys[i] = AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX
+                    + AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX + "key" + i;
+        }
+
+        warmProvider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        warmProvider.getConfigurationProperty(cachedKeys[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warmProvider.dispose();
+    }
+
+    /**
+     * Key already present in the loaded snapshot.
+     */
+    @Benchmark
+    public Optional<ConfigurationProperty> cacheHit() {
+        return warmProvider.getConfigurationProperty(randomKey(cachedKeys));
+    }
+
+    /**
+     * First lookup on a new provider: fetch, parse and publish the whole secret.
+     */
+    @Benchmark
+    public Optional<ConfigurationProperty> coldMiss() {
+        AWSSecretsManagerConfigurationPropertiesProvider provider =
+                new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        return provider.getConfigurationProperty(randomKey(cachedKeys));
+    }
+
+    /**
+     * {@code real-time::} lookup while the secret is not rotated: version check only.
+     */
+    @Benchmark
+    public Optional<ConfigurationProperty> realTimeUnchanged() {
+        return warmProvider.getConfigurationProperty(randomKey(realTimeKeys));
+    }
+
+    /**
+     * {@code real-time::} lookup right after a rotation: version check, download and single-key extraction.
+     */
+    @Benchmark
+    public Optional<ConfigurationProperty> realTimeAfterRotation() {
+        client.rotate(SECRET_NAME);
+        return warmProvider.getConfigurationProperty(randomKey(realTimeKeys));
+    }
+
+    private static String randomKey(String[] keys) {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
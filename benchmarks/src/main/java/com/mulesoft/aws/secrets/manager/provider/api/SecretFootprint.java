@@ -0,0 +1,43 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Retained heap size of the parsed values of one secret version, as the former {@code HashMap<String, String>}
+ * and as {@link CompactSecretValues}, for secrets of 10 to 10,000 keys. Sizes are measured with JOL on the running
+ * JVM, so they depend on its pointer size and object alignment.
+ * <p>
+ * {@code java -cp target/benchmarks.jar com.mulesoft.aws.secrets.manager.provider.api.SecretFootprint [keyCount...]}
+ */
+public final class SecretFootprint {
+
+    private static final int[] DEFAULT_KEY_COUNTS = {10, 100, 1000, 10000};
+
+    private SecretFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] keyCounts = DEFAULT_KEY_COUNTS;
+        if (args.length > 0) {
+            keyCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                keyCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%10s %14s %14s %10s %8s%n", "keys", "HashMap (B)", "compact (B)", "value (B)", "ratio");
+        for (int keyCount : keyCounts) {
+            String payload = InMemorySecretsManagerClient.jsonPayload(keyCount);
+            Map<String, String> map = SecretJsonReader.readAll(payload);
+            CompactSecretValues compact = SecretFormat.JSON.read(SecretPayload.ofDocument(null, payload));
+
+            long mapSize = GraphLayout.parseInstance(map).totalSize();
+            long compactSize = GraphLayout.parseInstance(compact).totalSize();
+            System.out.printf("%10d %14d %14d %10d %8.2f%n",
+                    keyCount, mapSize, compactSize, compact.getValueBytes(), (double) mapSize / compactSize);
+        }
+    }
+}
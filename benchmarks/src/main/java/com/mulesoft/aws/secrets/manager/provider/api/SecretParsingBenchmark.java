@@ -0,0 +1,85 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Secret parsing alone: the former per-call {@code ObjectMapper} map binding against the shared streaming
+ * {@link SecretJsonReader}, for a full parse and for a single-key extraction, and the full parse of a binary
+ * secret read in place. Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecretParsingBenchmark {
+
+    private final MapType mapType = TypeFactory.defaultInstance().constructMapType(HashMap.class, String.class, String.class);
+
+    @Param({"10", "100", "1000", "10000"})
+    public int keyCount;
+
+    private String payload;
+
+    private String middleKey;
+
+    private SecretPayload textPayload;
+
+    private SecretPayload binaryPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = InMemorySecretsManagerClient.jsonPayload(keyCount);
+        middleKey = "key" + keyCount / 2;
+        textPayload = SecretPayload.ofDocument(null, payload);
+        binaryPayload = SecretPayload.ofDocument(null, SecretFormat.JSON, ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Map<String, String> objectMapperFullParse() throws IOException {
+        return new ObjectMapper().readValue(payload, mapType);
+    }
+
+    @Benchmark
+    public String objectMapperSingleKey() throws IOException {
+        Map<String, String> values = new ObjectMapper().readValue(payload, mapType);
+        return values.get(middleKey);
+    }
+
+    @Benchmark
+    public Map<String, String> streamingFullParse() throws IOException {
+        return SecretJsonReader.readAll(payload);
+    }
+
+    @Benchmark
+    public String streamingSingleKey() throws IOException {
+        return SecretFormat.JSON.extract(textPayload, middleKey);
+    }
+
+    @Benchmark
+    public CompactSecretValues streamingBinaryFullParse() throws IOException {
+        return SecretFormat.JSON.read(binaryPayload);
+    }
+}
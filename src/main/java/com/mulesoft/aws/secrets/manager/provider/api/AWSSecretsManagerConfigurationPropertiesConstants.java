@@ -4,16 +4,45 @@ package com.mulesoft.aws.secrets.manager.provider.api;
 public final class AWSSecretsManagerConfigurationPropertiesConstants {
 
     public static final String SECRET_NAME = "secretName";
+    public static final String SECRET_NAMES = "secretNames";
+    public static final String SECRET_FORMATS = "secretFormats";
+    public static final String CACHE_TTL = "cacheTtl";
+    public static final String CACHE_MAX_STALENESS = "cacheMaxStaleness";
+    public static final String NEGATIVE_CACHE_TTL = "negativeCacheTtl";
+    public static final String SNAPSHOT_DIRECTORY = "snapshotDirectory";
+    public static final String SNAPSHOT_KEY = "snapshotKey";
+    public static final String SNAPSHOT_MAX_AGE = "snapshotMaxAge";
+    public static final String PRELOAD_RESOURCES = "preloadResources";
+    public static final String PARAMETER_PATHS = "parameterPaths";
+    public static final String INVALIDATION_QUEUE_URL = "invalidationQueueUrl";
     public static final String AWS_REGION = "region";
     public static final String AWS_ACCESS_KEY = "accessKey";
     public static final String AWS_SECRET_KEY = "secretKey";
     public static final String AWS_SESSION_TOKEN = "sessionToken";
     public static final String AWS_ROLE_ARN = "roleARN";
+    public static final String AWS_ROLE_SESSION_NAME = "roleSessionName";
+    public static final String AWS_ROLE_SESSION_DURATION = "roleSessionDuration";
+    public static final String AWS_ROLE_EXTERNAL_ID = "roleExternalId";
     public static final String AWS_CUSTOM_SERVICE_ENDPOINT = "customServiceEndPoint";
     public static final String AWS_USE_DEFAULT_PROVIDER_CHAIN = "useDefaultAWSCredentialsProviderChain";
+    public static final String AWS_HTTP_CLIENT = "httpClient";
+    public static final String AWS_ENGINE = "engine";
+    public static final String AWS_MAX_CONNECTIONS = "maxConnections";
+    public static final String AWS_CONNECTION_TIMEOUT = "connectionTimeout";
+    public static final String AWS_SOCKET_TIMEOUT = "socketTimeout";
+    public static final String AWS_REPLICA_REGIONS = "replicaRegions";
+    public static final String AWS_HEDGE_PERCENTILE = "hedgePercentile";
+    public static final String AWS_MAX_RETRIES = "maxRetries";
+    public static final String AWS_RETRY_BASE_DELAY = "retryBaseDelay";
+    public static final String AWS_RETRY_MAX_DELAY = "retryMaxDelay";
+    public static final String AWS_MAX_REQUESTS_PER_SECOND = "maxRequestsPerSecond";
+    public static final String AWS_CIRCUIT_BREAKER_THRESHOLD = "circuitBreakerThreshold";
+    public static final String AWS_CIRCUIT_BREAKER_OPEN_DURATION = "circuitBreakerOpenDuration";
 
     public final static String AWS_SECRETS_PREFIX = "aws-secrets::";
+    public final static String AWS_PARAMS_PREFIX = "aws-params::";
     public final static String REAL_TIME_PREFIX = "real-time::";
+    public final static String SECRET_KEY_SEPARATOR = "/";
 
     public static final String EXTENSION_NAME = "AWS Secrets Manager Properties Override";
     public static final String CONFIG_ELEMENT = "config";
@@ -1,12 +1,11 @@
 package com.mulesoft.aws.secrets.manager.provider.api;
 
 
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerAsyncClient;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.ssm.SsmClient;
 
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
-import software.amazon.awssdk.services.secretsmanager.model.SecretsManagerException;
-
+import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.config.api.dsl.model.properties.ConfigurationPropertiesProvider;
 import org.mule.runtime.config.api.dsl.model.properties.ConfigurationProperty;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
@@ -14,36 +13,227 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.MapType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
-
 import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
 import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
 import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
 
-public class AWSSecretsManagerConfigurationPropertiesProvider implements ConfigurationPropertiesProvider {
+public class AWSSecretsManagerConfigurationPropertiesProvider implements ConfigurationPropertiesProvider, Disposable {
 
     private final static Logger logger = LoggerFactory.getLogger(AWSSecretsManagerConfigurationPropertiesProvider.class);
 
+    private final static int MAX_PREFETCH_THREADS = 8;
+
     private final static Pattern AWS_SECRETS_PATTERN = Pattern.compile("\\$\\{" + AWS_SECRETS_PREFIX + "[^}]*}");
 
-    private Map <String, String> secretsCache = new ConcurrentHashMap<>();
+    // configured secrets, longest name first so that "<secret>/<key>" matches the most specific secret
+    private final List<CachedSecret> cachedSecrets;
+
+    // null when only parameter paths are configured
+    private final CachedSecret defaultSecret;
+
+    // configured parameter paths, longest path first
+    private final List<CachedSecret> cachedParameters;
+
+    // runs tasks that only start non-blocking calls
+    private final static Executor CALLING_THREAD = Runnable::run;
+
+    private final SecretBackend secretsBackend;
+
+    private final SecretBackend parameterBackend;
+
+    private final ExecutorService refreshExecutor;
 
-    private final SecretsManagerClient secretsManagerClient;
+    private final ExecutorService reconcileExecutor;
 
-    private final String secretName;
+    private final ProviderStatistics providerStatistics;
 
-    private final MapType mapType = TypeFactory.defaultInstance().constructMapType(HashMap.class, String.class, String.class);
+    // SDK clients and credential providers owned by this provider, closed on dispose
+    private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+
+    private boolean disposed;
+
+    // completes once the secrets loading in the background at construction have loaded or failed
+    private final CompletableFuture<Void> warmUp;
 
     public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, String secretName) {
-        this.secretsManagerClient = secretsManagerClient;
-        this.secretName = secretName;
+        this(secretsManagerClient, secretName, SecretCacheSettings.disabled());
+    }
+
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, String secretName,
+                                                            SecretCacheSettings cacheSettings) {
+        this(secretsManagerClient, Collections.singletonList(secretName), cacheSettings);
+    }
+
+    /**
+     * Creates a provider for several secrets. Keys are addressed as {@code aws-secrets::<secret>/<key>}; keys
+     * without a secret name are looked up in the first secret of the list. When more than one secret is
+     * configured all of them are fetched in parallel before the constructor returns.
+     *
+     * @param secretNames names or ARNs of the secrets, the first one being the default secret
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, List<String> secretNames,
+                                                            SecretCacheSettings cacheSettings) {
+        this(secretsManagerClient, secretNames, cacheSettings, new ProviderStatistics());
+    }
+
+    /**
+     * @param providerStatistics statistics of this provider, already holding the assume-role latency of its
+     *                           connection; published by {@link #registerStatistics()}
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, List<String> secretNames,
+                                                            SecretCacheSettings cacheSettings, ProviderStatistics providerStatistics) {
+        this(secretsManagerClient, secretNames, cacheSettings, null, providerStatistics);
+    }
+
+    /**
+     * @param snapshotStore encrypted local copy of the secrets, may be {@code null}. Secrets found in the store
+     *                      are served from it straight away and reconciled with AWS in the background. Copies are
+     *                      kept apart per backend; see {@link SnapshotStore#forSource(String)} for regions and
+     *                      accounts.
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, List<String> secretNames,
+                                                            SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                            ProviderStatistics providerStatistics) {
+        this(new SyncSecretFetcher(secretsManagerClient), secretNames, cacheSettings, snapshotStore, providerStatistics);
+    }
+
+    /**
+     * Creates a provider on the non-blocking client: startup loads, background refreshes and reconciliation
+     * are all in flight at once without holding a thread each, and only a lookup of a value that has not been
+     * loaded yet waits for AWS.
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerAsyncClient secretsManagerAsyncClient, List<String> secretNames,
+                                                            SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                            ProviderStatistics providerStatistics) {
+        this(new AsyncSecretFetcher(secretsManagerAsyncClient), secretNames, cacheSettings, snapshotStore, providerStatistics);
+    }
+
+    /**
+     * Creates a provider resolving {@code aws-secrets::} placeholders from Secrets Manager and
+     * {@code aws-params::} placeholders from the parameter paths of Parameter Store, read in bulk with
+     * {@code GetParametersByPath}.
+     *
+     * @param parameterPaths Parameter Store paths, each loaded as one secret whose keys are the parameter names
+     *                       relative to the path
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretsManagerClient secretsManagerClient, List<String> secretNames,
+                                                            SsmClient ssmClient, List<String> parameterPaths,
+                                                            SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                            ProviderStatistics providerStatistics) {
+        this(new SecretsManagerBackend(new SyncSecretFetcher(secretsManagerClient)), secretNames,
+                new ParameterStoreBackend(ssmClient), parameterPaths, cacheSettings, snapshotStore, providerStatistics);
+    }
+
+    AWSSecretsManagerConfigurationPropertiesProvider(SecretFetcher fetcher, List<String> secretNames,
+                                                     SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                     ProviderStatistics providerStatistics) {
+        this(new SecretsManagerBackend(fetcher), secretNames, null, Collections.emptyList(), cacheSettings,
+                snapshotStore, providerStatistics);
+    }
+
+    /**
+     * Creates a provider on any {@link SecretBackend}s.
+     *
+     * @param secretsBackend   backend of the {@code aws-secrets::} placeholders
+     * @param secretNames      its secrets, the first one being the default secret; may be empty when parameter
+     *                         paths are configured
+     * @param parameterBackend backend of the {@code aws-params::} placeholders, may be {@code null} when no
+     *                         parameter paths are configured
+     * @param parameterPaths   its secrets, which have no default: keys are always addressed as {@code <path>/<key>}
+     */
+    public AWSSecretsManagerConfigurationPropertiesProvider(SecretBackend secretsBackend, List<String> secretNames,
+                                                            SecretBackend parameterBackend, List<String> parameterPaths,
+                                                            SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                            ProviderStatistics providerStatistics) {
+        this(secretsBackend, secretNames, parameterBackend, parameterPaths, cacheSettings, snapshotStore,
+                providerStatistics, null);
+    }
+
+    /**
+     * @param warmUpExecutor when not {@code null}, every secret starts loading on this executor and the
+     *                       constructor returns without waiting for any of them; the first lookup of a secret
+     *                       then joins its load in flight
+     */
+    AWSSecretsManagerConfigurationPropertiesProvider(SecretBackend secretsBackend, List<String> secretNames,
+                                                     SecretBackend parameterBackend, List<String> parameterPaths,
+                                                     SecretCacheSettings cacheSettings, SnapshotStore snapshotStore,
+                                                     ProviderStatistics providerStatistics, Executor warmUpExecutor) {
+        this.providerStatistics = providerStatistics;
+        if ((secretNames == null || secretNames.isEmpty()) && (parameterPaths == null || parameterPaths.isEmpty())) {
+            throw new IllegalArgumentException("At least one secret name is required");
+        }
+        if (parameterPaths != null && !parameterPaths.isEmpty() && parameterBackend == null) {
+            throw new IllegalArgumentException("Parameter paths require a parameter backend");
+        }
+        this.secretsBackend = secretsBackend;
+        this.parameterBackend = parameterBackend;
+        boolean blocking = !secretsBackend.isNonBlocking() || (parameterBackend != null && !parameterBackend.isNonBlocking());
+        // also runs the reloads of invalidated secrets when caching is disabled; its thread starts on first use
+        this.refreshExecutor = blocking
+                ? createRefreshExecutor(secretNames == null || secretNames.isEmpty() ? parameterPaths.get(0) : secretNames.get(0))
+                : null;
+
+        List<CachedSecret> secrets = createCachedSecrets(secretsBackend, secretNames, cacheSettings, snapshotStore);
+        this.defaultSecret = secrets.isEmpty() ? null : secrets.get(0);
+        this.cachedSecrets = sortedBySpecificity(secrets);
+        this.cachedParameters = sortedBySpecificity(
+                createCachedSecrets(parameterBackend, parameterPaths, cacheSettings, snapshotStore));
+
+        List<CachedSecret> restored = new ArrayList<>();
+        List<CachedSecret> pending = new ArrayList<>();
+        for (CachedSecret cachedSecret : allSecrets()) {
+            (cachedSecret.restore() ? restored : pending).add(cachedSecret);
+        }
+        this.reconcileExecutor = restored.isEmpty() ? null : reconcile(restored);
+        if (warmUpExecutor != null) {
+            this.warmUp = warmUp(pending, warmUpExecutor);
+        } else {
+            if (cachedSecrets.size() + cachedParameters.size() > 1 && !pending.isEmpty()) {
+                prefetch(pending);
+            }
+            this.warmUp = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private List<CachedSecret> createCachedSecrets(SecretBackend backend, List<String> names,
+                                                   SecretCacheSettings cacheSettings, SnapshotStore snapshotStore) {
+        List<CachedSecret> secrets = new ArrayList<>();
+        if (names == null) {
+            return secrets;
+        }
+        SingleFlight<String, SecretSnapshot> inFlightLoads = new SingleFlight<>();
+        SnapshotStore backendStore = snapshotStore == null ? null : snapshotStore.forSource(backend.getName());
+        for (String name : new LinkedHashSet<>(names)) {
+            secrets.add(new CachedSecret(backend, name, cacheSettings,
+                    backend.isNonBlocking() ? CALLING_THREAD : refreshExecutor, inFlightLoads, backendStore));
+        }
+        return secrets;
+    }
+
+    private static List<CachedSecret> sortedBySpecificity(List<CachedSecret> secrets) {
+        List<CachedSecret> sorted = new ArrayList<>(secrets);
+        sorted.sort(Comparator.comparingInt((CachedSecret secret) -> secret.getSecretName().length()).reversed());
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private List<CachedSecret> allSecrets() {
+        List<CachedSecret> all = new ArrayList<>(cachedSecrets);
+        all.addAll(cachedParameters);
+        return all;
     }
 
     @Override
@@ -52,18 +242,21 @@ public class AWSSecretsManagerConfigurationPropertiesProvider implements Configu
             logger.debug ("ConfigAttributeKey: {}", configurationAttributeKey);
         String modifiedText = configurationAttributeKey;
 
-        if (modifiedText.startsWith(AWS_SECRETS_PREFIX)) {
-            final String effectiveKey = modifiedText.substring (AWS_SECRETS_PREFIX.length());
+        boolean parameter = modifiedText.startsWith(AWS_PARAMS_PREFIX) && !cachedParameters.isEmpty();
+        if (modifiedText.startsWith(AWS_SECRETS_PREFIX) || parameter) {
+            final String effectiveKey = modifiedText.substring (parameter ? AWS_PARAMS_PREFIX.length() : AWS_SECRETS_PREFIX.length());
+            final String source = parameter ? parameterBackend.getName() : secretsBackend.getName();
             if (logger.isDebugEnabled())
                 logger.debug ("Effective Key: {}" , effectiveKey);
             try {
-                final String value = getSecret(effectiveKey);
+                final String value = parameter ? getSecret(effectiveKey, cachedParameters, null)
+                        : getSecret(effectiveKey, cachedSecrets, defaultSecret);
                 if (value != null) {
                     return Optional.of(new ConfigurationProperty() {
 
                         @Override
                         public Object getSource() {
-                            return "AWS Secrets Manager";
+                            return source;
                         }
 
                         @Override
@@ -78,6 +271,7 @@ public class AWSSecretsManagerConfigurationPropertiesProvider implements Configu
                     });
                 }
             } catch (Exception e) {
+                logger.warn("Failed to resolve property {} from {} -- {}", effectiveKey, source, e.getMessage());
                 return Optional.empty();
             }
         }
@@ -89,8 +283,265 @@ public class AWSSecretsManagerConfigurationPropertiesProvider implements Configu
         return "AWS Secrets Manager Properties Provider";
     }
 
+    /**
+     * Returns the snapshot currently held for a configured secret. Reading several related keys (for example a
+     * user name and its password) from the same snapshot guarantees they come from the same version of the secret.
+     * <p>
+     * Once a newer version replaces it, the values of the snapshot are zeroed and reading them fails with an
+     * {@link IllegalStateException}; the keys are then read again from the snapshot this method returns next.
+     * {@link #readSnapshot(String, Function)} does so.
+     *
+     * @param secretName one of the configured secret names or parameter paths
+     * @return the current snapshot, which is empty (generation 0) while the secret has not been loaded yet
+     */
+    public SecretSnapshot getSnapshot(String secretName) {
+        return getCachedSecret(secretName).getSnapshot();
+    }
+
+    /**
+     * Reads several keys of a configured secret from the same version of it. Should a newer version retire the
+     * snapshot while {@code reader} runs, {@code reader} runs again on the new snapshot, so it sees neither values
+     * of two versions nor zeroed ones.
+     *
+     * @param secretName one of the configured secret names or parameter paths
+     * @param reader     reads the keys from the snapshot, and may run more than once
+     * @return the result of the last run of {@code reader}
+     */
+    public <T> T readSnapshot(String secretName, Function<SecretSnapshot, T> reader) {
+        CachedSecret cachedSecret = getCachedSecret(secretName);
+        while (true) {
+            try {
+                return reader.apply(cachedSecret.getSnapshot());
+            } catch (RetiredSnapshotException e) {
+                // a newer version was published while the keys were read, read them from that one
+            }
+        }
+    }
+
+    private CachedSecret getCachedSecret(String secretName) {
+        for (CachedSecret cachedSecret : allSecrets()) {
+            if (cachedSecret.getSecretName().equals(secretName)) {
+                return cachedSecret;
+            }
+        }
+        throw new IllegalArgumentException("Secret " + secretName + " is not configured in this provider");
+    }
+
+    /**
+     * @return hit, miss, version check skip and fetch counters of every configured secret, keyed by secret name
+     */
+    public Map<String, SecretCacheStatistics> getCacheStatistics() {
+        Map<String, SecretCacheStatistics> statistics = new LinkedHashMap<>();
+        for (CachedSecret cachedSecret : allSecrets()) {
+            statistics.put(cachedSecret.getSecretName(), cachedSecret.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Publishes the statistics of this provider and its secrets as JMX MXBeans (and Micrometer meters when
+     * available) until {@link #dispose()}.
+     */
+    public void registerStatistics() {
+        List<SecretCacheStatistics> statistics = new ArrayList<>();
+        if (defaultSecret != null) {
+            statistics.add(defaultSecret.getStatistics());
+        }
+        for (CachedSecret cachedSecret : allSecrets()) {
+            if (cachedSecret != defaultSecret) {
+                statistics.add(cachedSecret.getStatistics());
+            }
+        }
+        providerStatistics.register(statistics, this::invalidate);
+    }
+
+    /**
+     * Refreshes the configured secrets a change notification refers to, in the background. Secrets Manager
+     * secrets match by name or ARN; a Parameter Store parameter matches the configured paths it is found under.
+     *
+     * @param secretId secret name or ARN, or parameter name
+     * @return the number of configured secrets being refreshed
+     */
+    public int invalidate(String secretId) {
+        int invalidated = 0;
+        for (CachedSecret cachedSecret : cachedSecrets) {
+            if (isSameSecret(cachedSecret.getSecretName(), secretId)) {
+                invalidate(cachedSecret);
+                invalidated++;
+            }
+        }
+        for (CachedSecret cachedParameter : cachedParameters) {
+            String path = cachedParameter.getSecretName();
+            if (secretId.equals(path) || secretId.startsWith(path + SECRET_KEY_SEPARATOR)) {
+                invalidate(cachedParameter);
+                invalidated++;
+            }
+        }
+        if (invalidated == 0 && logger.isDebugEnabled())
+            logger.debug("Secret {} is not configured in this provider, ignoring its change", secretId);
+        return invalidated;
+    }
+
+    private void invalidate(CachedSecret cachedSecret) {
+        logger.info("Secret {} changed, refreshing it", cachedSecret.getSecretName());
+        CompletableFuture<SecretSnapshot> refresh;
+        try {
+            refresh = cachedSecret.invalidateAsync();
+        } catch (RejectedExecutionException e) {
+            logger.debug("Refresh executor is shut down, skipping refresh of secret {}", cachedSecret.getSecretName());
+            return;
+        }
+        refresh.whenComplete((loaded, failure) -> {
+            if (failure != null) {
+                logger.warn("Refresh of changed secret {} failed, serving the cached values -- {}",
+                        cachedSecret.getSecretName(), SingleFlight.unwrap(failure).getMessage());
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Secret {} is at version {}", cachedSecret.getSecretName(), loaded.getVersionId());
+            }
+        });
+    }
+
+    /**
+     * Whether a secret id from a notification names a configured secret. Either may be a name or an ARN, whose
+     * last part is {@code secret:<name>-<6 random characters>}.
+     */
+    static boolean isSameSecret(String configured, String secretId) {
+        return configured.equals(secretId) || secretNameOf(configured).equals(secretNameOf(secretId));
+    }
+
+    private static String secretNameOf(String secretId) {
+        int start = secretId.startsWith("arn:") ? secretId.indexOf(":secret:") : -1;
+        if (start < 0) {
+            return secretId;
+        }
+        String name = secretId.substring(start + ":secret:".length());
+        int suffix = name.lastIndexOf('-');
+        return suffix > 0 && name.length() - suffix == 7 ? name.substring(0, suffix) : name;
+    }
+
+    /**
+     * Refreshes secrets as the source reports them changed, until {@link #dispose()}. Combined with
+     * {@link SecretCacheSettings#untilInvalidated(Duration, Duration)} this replaces polling altogether.
+     */
+    public void listenForInvalidations(InvalidationSource source) {
+        closeOnDispose(source.subscribe(this::invalidate));
+    }
+
+    /**
+     * Hands a resource created for this provider, such as an SDK client or a credentials provider, over to
+     * the provider so that it is closed when the provider is disposed, or right away when it already is.
+     */
+    public void closeOnDispose(AutoCloseable resource) {
+        synchronized (resources) {
+            if (!disposed) {
+                resources.add(resource);
+                return;
+            }
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close {} -- {}", resource, e.toString());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (resources) {
+            disposed = true;
+        }
+        providerStatistics.unregister();
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+        for (CachedSecret cachedSecret : allSecrets()) {
+            cachedSecret.retire();
+        }
+        // close in reverse order of creation, so that clients outlive the credential providers built on them
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close {} -- {}", resources.get(i), e.toString());
+            }
+        }
+        resources.clear();
+    }
+
+    /**
+     * Collects the keys of the {@code ${aws-secrets::...}} placeholders found in a configuration resource, in
+     * the form {@link #getConfigurationProperty(String)} receives them without the prefix. Placeholders whose
+     * key is itself built from another placeholder or an expression cannot be resolved ahead of time and are
+     * skipped.
+     */
+    public static Set<String> findPlaceholderKeys(CharSequence text) {
+        Set<String> keys = new LinkedHashSet<>();
+        Matcher matcher = AWS_SECRETS_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String key = matcher.group().substring(2 + AWS_SECRETS_PREFIX.length(), matcher.group().length() - 1).trim();
+            if (!key.isEmpty() && !key.contains("${") && !key.contains("#[")) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Loads, in one parallel pass, every secret the given placeholder keys refer to, then checks that each key
+     * is present, so that a misconfigured application fails at startup with one report rather than one
+     * property at a time.
+     *
+     * @param placeholderKeys keys as returned by {@link #findPlaceholderKeys(CharSequence)}
+     * @throws RuntimeException listing every secret that could not be loaded and every missing key
+     */
+    public void preload(Collection<String> placeholderKeys) {
+        long start = System.nanoTime();
+        Map<CachedSecret, Set<String>> keysBySecret = new LinkedHashMap<>();
+        List<String> unrouted = new ArrayList<>();
+        for (String placeholderKey : placeholderKeys) {
+            String secretKey = placeholderKey.startsWith(REAL_TIME_PREFIX)
+                    ? placeholderKey.substring(REAL_TIME_PREFIX.length()) : placeholderKey;
+            Map.Entry<CachedSecret, String> target = route(secretKey, cachedSecrets, defaultSecret);
+            if (target.getKey() == null) {
+                unrouted.add(placeholderKey);
+                continue;
+            }
+            keysBySecret.computeIfAbsent(target.getKey(), secret -> new LinkedHashSet<>()).add(target.getValue());
+        }
+
+        Map<CachedSecret, Throwable> failures = loadAll(new ArrayList<>(keysBySecret.keySet()));
+        List<String> problems = new ArrayList<>();
+        for (String placeholderKey : unrouted) {
+            problems.add("key " + placeholderKey + " does not name a configured secret");
+        }
+        for (Map.Entry<CachedSecret, Set<String>> entry : keysBySecret.entrySet()) {
+            CachedSecret cachedSecret = entry.getKey();
+            Throwable failure = failures.get(cachedSecret);
+            if (failure != null) {
+                problems.add("secret " + cachedSecret.getSecretName() + " could not be loaded (" + failure.getMessage()
+                        + "), needed for keys " + entry.getValue());
+                continue;
+            }
+            for (String secretKey : entry.getValue()) {
+                if (!cachedSecret.containsKey(secretKey)) {
+                    problems.add("key " + secretKey + " is missing from secret " + cachedSecret.getSecretName());
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            String errMsg = problems.size() + " AWS SM placeholders cannot be resolved: " + String.join("; ", problems);
+            logger.error(errMsg);
+            throw new RuntimeException(errMsg);
+        }
+        logger.info("Preloaded {} keys of {} secrets in {} ms", placeholderKeys.size(), keysBySecret.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
     @DisplayName("Get Secret")
-    private String getSecret (String secretKey) {
+    private String getSecret (String secretKey, List<CachedSecret> secrets, CachedSecret defaultTarget) {
         boolean realTimeFetch = false;
 
         if (secretKey.startsWith(REAL_TIME_PREFIX))
@@ -100,76 +551,155 @@ public class AWSSecretsManagerConfigurationPropertiesProvider implements Configu
             secretKey = secretKey.substring(REAL_TIME_PREFIX.length());
             if (logger.isDebugEnabled())
                 logger.debug ("real-time fetch for " + secretKey);
-        } else {
-            if (this.secretsCache.containsKey (secretKey) ) {
-                if (logger.isDebugEnabled())
-                    logger.debug ("Cache Hit for key: {}" , secretKey);
-                return getValueFromCache(secretKey);
-            }
         }
 
-        if (logger.isDebugEnabled())
-            logger.debug ("AWS SM Lookup for Key  {} within secret Id: {}" , secretKey, this.secretName);
+        Map.Entry<CachedSecret, String> target = route(secretKey, secrets, defaultTarget);
+        return target.getKey() == null ? null : target.getKey().get(target.getValue(), realTimeFetch);
+    }
 
-        GetSecretValueResponse valueResponse = null;
-        try {
-            GetSecretValueRequest valueRequest = GetSecretValueRequest.builder()
-                    .secretId(this.secretName)
-                    .versionStage(AWS_CURRENT_VERSION)
-                    .build();
-            valueResponse = secretsManagerClient.getSecretValue(valueRequest);
-        } catch(SecretsManagerException e) {
-            logger.error("Failed to Get Secret from AWS SM -- {} ", e.getMessage());
-            throw new RuntimeException ("The requested secret " + secretName + " was not found");
+    /**
+     * Splits {@code <secret>/<key>} into the configured secret and the key within it; keys without a configured
+     * secret name in front belong to the default secret, if any.
+     */
+    private static Map.Entry<CachedSecret, String> route(String secretKey, List<CachedSecret> secrets, CachedSecret defaultTarget) {
+        for (CachedSecret cachedSecret : secrets) {
+            String name = cachedSecret.getSecretName();
+            if (secretKey.length() > name.length() + SECRET_KEY_SEPARATOR.length()
+                    && secretKey.startsWith(name)
+                    && secretKey.startsWith(SECRET_KEY_SEPARATOR, name.length())) {
+                return new AbstractMap.SimpleImmutableEntry<>(cachedSecret,
+                        secretKey.substring(name.length() + SECRET_KEY_SEPARATOR.length()));
+            }
         }
+        return new AbstractMap.SimpleImmutableEntry<>(defaultTarget, secretKey);
+    }
 
-        if(valueResponse == null) {
-            logger.error("Failed to Get Secret from AWS SM - valueResponse is empty ");
-            return null;
+    /**
+     * Loads the given secrets in parallel so that startup waits for the slowest secret rather than for the sum of
+     * all of them. Failures are logged and the secret is loaded again on first use.
+     */
+    private void prefetch(List<CachedSecret> secrets) {
+        long start = System.nanoTime();
+        Map<CachedSecret, Throwable> failures = loadAll(secrets);
+        for (Map.Entry<CachedSecret, Throwable> failure : failures.entrySet()) {
+            logger.warn("Prefetch of secret {} failed -- {}", failure.getKey().getSecretName(), failure.getValue().getMessage());
         }
+        if (logger.isDebugEnabled())
+            logger.debug ("Prefetched {} secrets in {} ms", secrets.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-        String secret = null;
-
-        if(valueResponse.secretString() != null) {
-            secret = valueResponse.secretString();
-        }
-        else {
-            secret = new String (
-                    Base64.getDecoder().decode(
-                            valueResponse.secretBinary().asByteBuffer()
-                    ).array()
-            );
+    /**
+     * Starts loading the given secrets without waiting for them, so that construction overlaps with the loads.
+     * Failures are logged and the secret is loaded again on first use.
+     */
+    private CompletableFuture<Void> warmUp(List<CachedSecret> secrets, Executor warmUpExecutor) {
+        long start = System.nanoTime();
+        List<CompletableFuture<SecretSnapshot>> loads = new ArrayList<>();
+        for (CachedSecret cachedSecret : secrets) {
+            loads.add(CompletableFuture.supplyAsync(cachedSecret::loadAsync, warmUpExecutor)
+                    .thenCompose(load -> load)
+                    .whenComplete((loaded, failure) -> {
+                        if (failure != null) {
+                            logger.warn("Loading secret {} ahead of its first lookup failed -- {}",
+                                    cachedSecret.getSecretName(), SingleFlight.unwrap(failure).getMessage());
+                        }
+                    }));
         }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .handle((loaded, failure) -> {
+                    providerStatistics.recordStartupPhase("secrets", Duration.ofNanos(System.nanoTime() - start));
+                    return null;
+                });
+    }
 
-        if (realTimeFetch) {
-            ObjectMapper mapper = new ObjectMapper ();
-            Map <String, String> secretsCacheTemp = new ConcurrentHashMap<>();
-            try {
-                Map<String, String> interimMap =  mapper.readValue (secret, mapType);
-                secretsCacheTemp = interimMap;
-            } catch (IOException e) {
-                logger.error("Failed to Refresh the Cache -- {} ", e.toString());
-                return null;
+    /**
+     * @return a future completing once the secrets loading in the background at construction have loaded or
+     * failed, already complete when the provider was built without a warm-up executor
+     */
+    CompletableFuture<Void> getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Loads the secrets that are not loaded yet, all at once. Blocking fetchers get a bounded executor,
+     * non-blocking ones start every load from this thread.
+     *
+     * @return the failure of every secret that could not be loaded
+     */
+    private Map<CachedSecret, Throwable> loadAll(List<CachedSecret> secrets) {
+        Map<CachedSecret, Throwable> failures = new ConcurrentHashMap<>();
+        if (secrets.isEmpty()) {
+            return failures;
+        }
+        ExecutorService prefetchExecutor = !hasBlockingBackend(secrets) ? null
+                : Executors.newFixedThreadPool(Math.min(secrets.size(), MAX_PREFETCH_THREADS), runnable -> {
+                    Thread thread = new Thread(runnable, "aws-secrets-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<CompletableFuture<SecretSnapshot>> loads = new ArrayList<>();
+            for (CachedSecret cachedSecret : secrets) {
+                loads.add(CompletableFuture.supplyAsync(cachedSecret::loadAsync,
+                                prefetchExecutor == null ? CALLING_THREAD : prefetchExecutor)
+                        .thenCompose(load -> load)
+                        .exceptionally(e -> {
+                            failures.put(cachedSecret, SingleFlight.unwrap(e));
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdown();
             }
-            return secretsCacheTemp.get(secretKey);
-        } else {
-            updateSecretCache (secret);
-            return getValueFromCache(secretKey);
         }
+        return failures;
     }
 
-    private String getValueFromCache (String key) {
-        return this.secretsCache.get(key);
+    /**
+     * Reconciles the secrets restored from the snapshot store with AWS in the background: one secret after the
+     * other on a thread of its own for blocking fetchers, all at once for non-blocking ones. Failures are logged
+     * and the restored values stay in use until their maximum age.
+     *
+     * @return the executor running the reconciliation, {@code null} when none is needed
+     */
+    private ExecutorService reconcile(List<CachedSecret> secrets) {
+        ExecutorService executor = !hasBlockingBackend(secrets) ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aws-secrets-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (CachedSecret cachedSecret : secrets) {
+            (executor == null ? CALLING_THREAD : executor).execute(() -> cachedSecret.reconcileAsync()
+                    .whenComplete((reconciled, failure) -> {
+                        if (failure != null) {
+                            logger.warn("Reconciling secret {} with AWS SM failed, serving the restored snapshot -- {}",
+                                    cachedSecret.getSecretName(), SingleFlight.unwrap(failure).getMessage());
+                        }
+                    }));
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        return executor;
     }
 
-    private void updateSecretCache (String secretData) {
-        ObjectMapper mapper = new ObjectMapper ();
-        try {
-            Map<String, String> interimMap =  mapper.readValue (secretData, mapType);
-            secretsCache = interimMap;
-        } catch (IOException e) {
-            logger.error("Failed to Refresh the Cache -- {} ", e.toString());
-            throw new RuntimeException("Failed to Refresh the Cache from AWS SM");
+    private static boolean hasBlockingBackend(List<CachedSecret> secrets) {
+        for (CachedSecret cachedSecret : secrets) {
+            if (!cachedSecret.getBackend().isNonBlocking()) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private static ExecutorService createRefreshExecutor(String secretName) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aws-secrets-refresh-" + secretName);
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
@@ -8,13 +8,19 @@ package com.mulesoft.aws.secrets.manager.provider.api;
 
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.auth.credentials.*;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerAsyncClient;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.SsmClientBuilder;
 import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.StsClientBuilder;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
 import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
-import software.amazon.awssdk.services.sts.model.StsException;
-import software.amazon.awssdk.services.sts.model.AssumeRoleResponse;
-import software.amazon.awssdk.services.sts.model.Credentials;
 
 import org.mule.runtime.api.component.ComponentIdentifier;
 import org.mule.runtime.config.api.dsl.model.ConfigurationParameters;
@@ -24,9 +30,27 @@ import org.mule.runtime.config.api.dsl.model.properties.ConfigurationPropertiesP
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 
 import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
@@ -42,8 +66,31 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
   private static final ComponentIdentifier CUSTOM_PROPERTIES_PROVIDER =
           builder().namespace(EXTENSION_NAMESPACE).name(CONFIG_ELEMENT).build();
 
+  private static final Duration DEFAULT_SNAPSHOT_MAX_AGE = Duration.ofDays(1);
+
+  private static final int DEFAULT_HEDGE_PERCENTILE = 95;
+
+  // sqs.<region>.amazonaws.com, the host of AWS queue URLs
+  private static final Pattern SQS_HOST_PATTERN = Pattern.compile("sqs\\.([a-z0-9-]+)\\.amazonaws\\.com(\\.cn)?");
+
+  private static final int MAX_WARM_UP_THREADS = 8;
+
+  // shared by every provider of the application; its threads only live while there is startup work
+  private static final ExecutorService WARM_UP_EXECUTOR = createWarmUpExecutor();
+
   private final static Logger logger = LoggerFactory.getLogger(AWSSecretsManagerConfigurationPropertiesProvider.class);
 
+  private static ExecutorService createWarmUpExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_WARM_UP_THREADS, MAX_WARM_UP_THREADS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+              Thread thread = new Thread(runnable, "aws-secrets-warm-up");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   @Override
   public ComponentIdentifier getSupportedComponentIdentifier() {
     return CUSTOM_PROPERTIES_PROVIDER;
@@ -81,22 +128,39 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
     ConfigurationParameters advConnectionsParams = advancedConnectionsList.isEmpty() ? null : advancedConnectionsList.get(0);
 
 
-    String secretName = getStringParameter (smParams, SECRET_NAME);
+    List<String> secretNames = getSecretNames(smParams);
+    List<String> parameterPaths = getParameterPaths(smParams);
+    if (secretNames.isEmpty() && parameterPaths.isEmpty()) {
+      String errMsg = SECRET_NAME + ", " + SECRET_NAMES + " or " + PARAMETER_PATHS + " parameter is required";
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
+    }
+    Map<String, SecretFormat> secretFormats = getSecretFormats(smParams, secretNames);
+    String invalidationQueueUrl = StringUtils.trimToNull(getOptionalStringParameter(smParams, INVALIDATION_QUEUE_URL));
+    SecretCacheSettings cacheSettings = getCacheSettings(smParams, invalidationQueueUrl != null);
+    SnapshotStore snapshotStore = getSnapshotStore(smParams);
+    Set<String> preloadKeys = getPreloadKeys(smParams, externalResourceProvider);
 
     String region = getStringParameter( basicConnectionParams,AWS_REGION).toLowerCase();
     String accessKey = getStringParameter(basicConnectionParams, AWS_ACCESS_KEY);
     String secretKey = getStringParameter(basicConnectionParams, AWS_SECRET_KEY);
     String sessionToken = getStringParameter(basicConnectionParams, AWS_SESSION_TOKEN);
 
-    String roleARN = null;
-    if (roleConnectionParams != null)
-     roleARN = getStringParameter(roleConnectionParams, AWS_ROLE_ARN);
-
-    String customEndpoint = null;
-    boolean useDefaultAWSCredentialsProviderChain = false;
-    if (advConnectionsParams != null) {
-      customEndpoint = getStringParameter(advConnectionsParams, AWS_CUSTOM_SERVICE_ENDPOINT);
-      useDefaultAWSCredentialsProviderChain = Boolean.parseBoolean(getStringParameter(advConnectionsParams, AWS_USE_DEFAULT_PROVIDER_CHAIN));
+    String roleARN = roleConnectionParams == null ? null : getStringParameter(roleConnectionParams, AWS_ROLE_ARN);
+    RoleSessionSettings roleSession = roleConnectionParams == null ? null : getRoleSessionSettings(roleConnectionParams);
+
+    String customEndpoint = advConnectionsParams == null ? null : getStringParameter(advConnectionsParams, AWS_CUSTOM_SERVICE_ENDPOINT);
+    boolean useDefaultAWSCredentialsProviderChain = advConnectionsParams != null
+            && Boolean.parseBoolean(getStringParameter(advConnectionsParams, AWS_USE_DEFAULT_PROVIDER_CHAIN));
+    HttpClientSettings httpClientSettings = getHttpClientSettings(advConnectionsParams);
+    SecretFetcher.Engine engine = getEngine(advConnectionsParams);
+    ResilienceSettings resilienceSettings = getResilienceSettings(advConnectionsParams);
+    Map<String, String> replicaRegions = getReplicaRegions(advConnectionsParams, region);
+    int hedgePercentile = (int) getLongParameter(advConnectionsParams, AWS_HEDGE_PERCENTILE, DEFAULT_HEDGE_PERCENTILE);
+    if (hedgePercentile < 0 || hedgePercentile >= 100) {
+      String errMsg = AWS_HEDGE_PERCENTILE + " must be between 0 and 99";
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
     }
 
     if (!useDefaultAWSCredentialsProviderChain &&
@@ -107,22 +171,90 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
     }
 
     if (StringUtils.isNotEmpty(roleARN) &&
-            (useDefaultAWSCredentialsProviderChain ||
-                    (StringUtils.isNotEmpty(accessKey) && StringUtils.isNotEmpty(secretKey))
-            )
+            !useDefaultAWSCredentialsProviderChain &&
+            (StringUtils.isEmpty(accessKey) || StringUtils.isEmpty(secretKey))
     ) {
       String errMsg = "Role based connection requires either Default AWS Credentials Provider Chain or Access/Secret Key";
       logger.error(errMsg);
       throw new RuntimeException(errMsg);
     }
 
-    logger.debug ("AWS SM Provider Creation for Secret: {}, region: {}", secretName,region);
+    logger.debug ("AWS SM Provider Creation for Secrets: {}, Parameter Paths: {}, region: {}", secretNames, parameterPaths, region);
+    boolean parameterStore = !parameterPaths.isEmpty();
+    String connectionKey = getConnectionKey(region, accessKey, secretKey, sessionToken, customEndpoint,
+            useDefaultAWSCredentialsProviderChain, roleARN, roleSession, httpClientSettings, engine, replicaRegions,
+            hedgePercentile, parameterStore, invalidationQueueUrl);
+    if (snapshotStore != null) {
+      snapshotStore = snapshotStore.forSource(getSnapshotSource(region, customEndpoint, accessKey,
+              useDefaultAWSCredentialsProviderChain, roleARN));
+    }
+
+    // the clients are created, the credentials resolved and the secrets loaded on warm-up threads, so that the
+    // provider is returned right away and the first lookup only waits for what is still in progress
+    long start = System.nanoTime();
+    ProviderStatistics providerStatistics = new ProviderStatistics();
+    CompletableFuture<ClientRegistry.Lease<SecretsManagerConnection>> connection = CompletableFuture.supplyAsync(() -> {
+      ClientRegistry.Lease<SecretsManagerConnection> lease = SecretsManagerConnection.REGISTRY.acquire(connectionKey,
+              () -> createAWSSecretsManager(region, accessKey, secretKey, sessionToken, customEndpoint,
+                      useDefaultAWSCredentialsProviderChain, roleARN, roleSession, httpClientSettings, engine,
+                      replicaRegions, hedgePercentile, parameterStore, invalidationQueueUrl));
+      providerStatistics.setAssumeRoleLatency(lease.get().getAssumeRoleLatency());
+      providerStatistics.recordStartupPhase("clients", Duration.ofNanos(System.nanoTime() - start));
+      return lease;
+    }, WARM_UP_EXECUTOR);
+    CompletableFuture<ResilientSecretFetcher> fetcher = connection.thenApply(lease ->
+            new ResilientSecretFetcher(lease.get().getFetcher(), resilienceSettings, providerStatistics));
+    SecretBackend secretsBackend = new DeferredSecretBackend(SecretsManagerBackend.NAME,
+            engine == SecretFetcher.Engine.ASYNC,
+            fetcher.thenApply(created -> new SecretsManagerBackend(created, secretFormats)), WARM_UP_EXECUTOR);
+    SecretBackend parameterBackend = !parameterStore ? null : new DeferredSecretBackend(ParameterStoreBackend.NAME,
+            false, connection.thenApply(lease -> lease.get().getParameterBackend()), WARM_UP_EXECUTOR);
+
+    AWSSecretsManagerConfigurationPropertiesProvider provider;
     try {
-      return new AWSSecretsManagerConfigurationPropertiesProvider(createAWSSecretsManager(region, accessKey,secretKey, sessionToken, customEndpoint, useDefaultAWSCredentialsProviderChain, roleARN), secretName);
-    } catch (Exception ve) {
-      logger.error("Error connecting to AWS Secrets Manager", ve);
+      provider = new AWSSecretsManagerConfigurationPropertiesProvider(secretsBackend, secretNames, parameterBackend,
+              parameterPaths, cacheSettings, snapshotStore, providerStatistics, WARM_UP_EXECUTOR);
+    } catch (RuntimeException e) {
+      logger.error("Error creating the AWS SM Provider", e);
+      fetcher.thenAccept(ResilientSecretFetcher::close);
+      connection.thenAccept(ClientRegistry.Lease::close);
       return null;
     }
+    provider.closeOnDispose(() -> fetcher.whenComplete((created, failure) -> {
+      if (created != null) {
+        created.close();
+      }
+      connection.thenAccept(ClientRegistry.Lease::close);
+    }));
+    connection.whenComplete((lease, failure) -> {
+      if (failure != null) {
+        logger.error("Error connecting to AWS Secrets Manager", SingleFlight.unwrap(failure));
+      } else if (lease.get().getInvalidationSource() != null) {
+        provider.listenForInvalidations(lease.get().getInvalidationSource());
+      }
+    });
+    CompletableFuture<Duration> credentials = connection.thenCompose(lease -> lease.get().getCredentialsResolution())
+            .whenComplete((resolution, failure) -> {
+              if (resolution != null) {
+                providerStatistics.recordStartupPhase("credentials", resolution);
+              }
+            });
+    CompletableFuture.allOf(credentials, provider.getWarmUp()).whenComplete((ready, failure) -> {
+      providerStatistics.recordStartupPhase("total", Duration.ofNanos(System.nanoTime() - start));
+      logger.info("AWS SM Provider for Secrets: {}, Parameter Paths: {} started, phases (ms): {}", secretNames,
+              parameterPaths, providerStatistics.getStartupPhaseMillis());
+    });
+
+    if (preloadKeys != null) {
+      try {
+        provider.preload(preloadKeys);
+      } catch (RuntimeException e) {
+        provider.dispose();
+        throw e;
+      }
+    }
+    provider.registerStatistics();
+    return provider;
   }
 
   private String getStringParameter (ConfigurationParameters params, String parameterName) {
@@ -136,23 +268,460 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
     }
   }
 
-  private SecretsManagerClient createAWSSecretsManager(String region,  String accessKey, String secretKey,
-                                                       String sessionToken, String customEndpoint, boolean useDefaultAWSCredentialsProviderChain, String roleARN) {
+  private String getOptionalStringParameter (ConfigurationParameters params, String parameterName) {
+    try {
+      return params.getStringParameter(parameterName);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private long getSecondsParameter (ConfigurationParameters params, String parameterName) {
+    return getSecondsParameter(params, parameterName, 0);
+  }
+
+  private long getSecondsParameter (ConfigurationParameters params, String parameterName, long defaultValue) {
+    return getLongParameter(params, parameterName, defaultValue);
+  }
+
+  private long getLongParameter (ConfigurationParameters params, String parameterName, long defaultValue) {
+    String value = params == null ? null : getOptionalStringParameter(params, parameterName);
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      String errMsg = parameterName + " must be a whole number";
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
+    }
+  }
+
+  private List<String> getSecretNames (ConfigurationParameters smParams) {
+    Set<String> secretNames = new LinkedHashSet<>();
+    String secretName = getOptionalStringParameter(smParams, SECRET_NAME);
+    if (StringUtils.isNotBlank(secretName)) {
+      secretNames.add(secretName.trim());
+    }
+    String additionalSecretNames = getOptionalStringParameter(smParams, SECRET_NAMES);
+    if (StringUtils.isNotBlank(additionalSecretNames)) {
+      for (String name : additionalSecretNames.split(",")) {
+        if (StringUtils.isNotBlank(name)) {
+          secretNames.add(name.trim());
+        }
+      }
+    }
+    return new ArrayList<>(secretNames);
+  }
+
+  /**
+   * Parses the {@code <secret name>=<format>} pairs. Secret names may contain {@code =}, formats never do.
+   */
+  private Map<String, SecretFormat> getSecretFormats (ConfigurationParameters smParams, List<String> secretNames) {
+    Map<String, SecretFormat> formats = new HashMap<>();
+    String value = getOptionalStringParameter(smParams, SECRET_FORMATS);
+    if (StringUtils.isBlank(value)) {
+      return formats;
+    }
+    for (String entry : value.split(",")) {
+      if (StringUtils.isBlank(entry)) {
+        continue;
+      }
+      int separator = entry.lastIndexOf('=');
+      String secretName = separator < 0 ? "" : entry.substring(0, separator).trim();
+      if (!secretNames.contains(secretName)) {
+        String errMsg = SECRET_FORMATS + " entry " + entry.trim() + " must be <secret name>=<format> for one of the configured secrets";
+        logger.error(errMsg);
+        throw new RuntimeException(errMsg);
+      }
+      try {
+        formats.put(secretName, SecretFormat.parse(entry.substring(separator + 1)));
+      } catch (IllegalArgumentException e) {
+        logger.error(e.getMessage());
+        throw new RuntimeException(e.getMessage());
+      }
+    }
+    return formats;
+  }
+
+  private List<String> getParameterPaths (ConfigurationParameters smParams) {
+    Set<String> paths = new LinkedHashSet<>();
+    String value = getOptionalStringParameter(smParams, PARAMETER_PATHS);
+    if (StringUtils.isNotBlank(value)) {
+      for (String path : value.split(",")) {
+        String trimmed = StringUtils.stripEnd(path.trim(), "/");
+        if (trimmed.isEmpty()) {
+          continue;
+        }
+        if (!trimmed.startsWith("/")) {
+          String errMsg = PARAMETER_PATHS + " entry " + path.trim() + " must start with /";
+          logger.error(errMsg);
+          throw new RuntimeException(errMsg);
+        }
+        paths.add(trimmed);
+      }
+    }
+    return new ArrayList<>(paths);
+  }
+
+  /**
+   * @param invalidated whether an invalidation queue keeps the secrets current; without a TTL they are then
+   *                    cached until invalidated
+   */
+  private SecretCacheSettings getCacheSettings (ConfigurationParameters smParams, boolean invalidated) {
+    long ttl = getSecondsParameter(smParams, CACHE_TTL);
+    long maxStaleness = getSecondsParameter(smParams, CACHE_MAX_STALENESS);
+    long negativeCacheTtl = getSecondsParameter(smParams, NEGATIVE_CACHE_TTL,
+            SecretCacheSettings.DEFAULT_NEGATIVE_CACHE_TTL.getSeconds());
+    try {
+      if (invalidated && ttl == 0) {
+        return SecretCacheSettings.untilInvalidated(Duration.ofSeconds(maxStaleness), Duration.ofSeconds(negativeCacheTtl));
+      }
+      return new SecretCacheSettings(Duration.ofSeconds(ttl), Duration.ofSeconds(maxStaleness),
+              Duration.ofSeconds(negativeCacheTtl));
+    } catch (IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  private RoleSessionSettings getRoleSessionSettings (ConfigurationParameters roleConnectionParams) {
+    String sessionName = getOptionalStringParameter(roleConnectionParams, AWS_ROLE_SESSION_NAME);
+    long sessionDuration = getSecondsParameter(roleConnectionParams, AWS_ROLE_SESSION_DURATION,
+            RoleSessionSettings.DEFAULT_SESSION_DURATION.getSeconds());
+    String externalId = getOptionalStringParameter(roleConnectionParams, AWS_ROLE_EXTERNAL_ID);
+    try {
+      return new RoleSessionSettings(StringUtils.isBlank(sessionName) ? RoleSessionSettings.DEFAULT_SESSION_NAME : sessionName.trim(),
+              Duration.ofSeconds(sessionDuration), StringUtils.isBlank(externalId) ? null : externalId.trim());
+    } catch (IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  private HttpClientSettings getHttpClientSettings (ConfigurationParameters advConnectionsParams) {
+    String type = advConnectionsParams == null ? null : getOptionalStringParameter(advConnectionsParams, AWS_HTTP_CLIENT);
+    long maxConnections = getLongParameter(advConnectionsParams, AWS_MAX_CONNECTIONS, HttpClientSettings.DEFAULT_MAX_CONNECTIONS);
+    long connectionTimeout = getLongParameter(advConnectionsParams, AWS_CONNECTION_TIMEOUT,
+            HttpClientSettings.DEFAULT_CONNECTION_TIMEOUT.toMillis());
+    long socketTimeout = getLongParameter(advConnectionsParams, AWS_SOCKET_TIMEOUT,
+            HttpClientSettings.DEFAULT_SOCKET_TIMEOUT.toMillis());
+    try {
+      return new HttpClientSettings(
+              StringUtils.isBlank(type) ? HttpClientSettings.Type.APACHE : HttpClientSettings.Type.valueOf(type.trim().toUpperCase()),
+              (int) Math.min(maxConnections, Integer.MAX_VALUE), Duration.ofMillis(connectionTimeout), Duration.ofMillis(socketTimeout));
+    } catch (IllegalArgumentException e) {
+      String errMsg = "Invalid HTTP client configuration -- " + e.getMessage();
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
+    }
+  }
+
+  private SecretFetcher.Engine getEngine (ConfigurationParameters advConnectionsParams) {
+    String engine = advConnectionsParams == null ? null : getOptionalStringParameter(advConnectionsParams, AWS_ENGINE);
+    if (StringUtils.isBlank(engine)) {
+      return SecretFetcher.Engine.SYNC;
+    }
+    try {
+      return SecretFetcher.Engine.valueOf(engine.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      String errMsg = AWS_ENGINE + " must be SYNC or ASYNC";
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
+    }
+  }
+
+  /**
+   * Parses the replica regions, each either a region name or {@code region=host[:port]} for a custom endpoint.
+   *
+   * @return the custom endpoint of every replica region, or {@code null} for its regional endpoint
+   */
+  private Map<String, String> getReplicaRegions (ConfigurationParameters advConnectionsParams, String primaryRegion) {
+    String replicas = advConnectionsParams == null ? null : getOptionalStringParameter(advConnectionsParams, AWS_REPLICA_REGIONS);
+    Map<String, String> replicaRegions = new LinkedHashMap<>();
+    if (StringUtils.isBlank(replicas)) {
+      return replicaRegions;
+    }
+    for (String replica : replicas.split(",")) {
+      if (StringUtils.isBlank(replica)) {
+        continue;
+      }
+      int separator = replica.indexOf('=');
+      String replicaRegion = (separator < 0 ? replica : replica.substring(0, separator)).trim().toLowerCase();
+      String endpoint = separator < 0 ? null : StringUtils.trimToNull(replica.substring(separator + 1));
+      if (replicaRegion.isEmpty() || replicaRegion.equals(primaryRegion)) {
+        String errMsg = AWS_REPLICA_REGIONS + " must list regions other than the primary region -- " + replica.trim();
+        logger.error(errMsg);
+        throw new RuntimeException(errMsg);
+      }
+      replicaRegions.put(replicaRegion, endpoint);
+    }
+    return replicaRegions;
+  }
 
-    logger.debug ("Region: [{}], Custom Endpoint: [{}], Try Default Credentials Provider Chain: [{}], RoleARN: [{}]", region,
-            customEndpoint, useDefaultAWSCredentialsProviderChain, roleARN);
+  private ResilienceSettings getResilienceSettings (ConfigurationParameters advConnectionsParams) {
+    long maxRetries = getLongParameter(advConnectionsParams, AWS_MAX_RETRIES, ResilienceSettings.DEFAULT_MAX_RETRIES);
+    long retryBaseDelay = getLongParameter(advConnectionsParams, AWS_RETRY_BASE_DELAY,
+            ResilienceSettings.DEFAULT_RETRY_BASE_DELAY.toMillis());
+    long retryMaxDelay = getLongParameter(advConnectionsParams, AWS_RETRY_MAX_DELAY,
+            ResilienceSettings.DEFAULT_RETRY_MAX_DELAY.toMillis());
+    long maxRequestsPerSecond = getLongParameter(advConnectionsParams, AWS_MAX_REQUESTS_PER_SECOND,
+            ResilienceSettings.DEFAULT_MAX_REQUESTS_PER_SECOND);
+    long circuitBreakerThreshold = getLongParameter(advConnectionsParams, AWS_CIRCUIT_BREAKER_THRESHOLD,
+            ResilienceSettings.DEFAULT_CIRCUIT_BREAKER_THRESHOLD);
+    long circuitBreakerOpenDuration = getSecondsParameter(advConnectionsParams, AWS_CIRCUIT_BREAKER_OPEN_DURATION,
+            ResilienceSettings.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION.getSeconds());
+    try {
+      return new ResilienceSettings((int) Math.min(maxRetries, Integer.MAX_VALUE), Duration.ofMillis(retryBaseDelay),
+              Duration.ofMillis(retryMaxDelay), (int) Math.min(maxRequestsPerSecond, Integer.MAX_VALUE),
+              (int) Math.min(circuitBreakerThreshold, Integer.MAX_VALUE), Duration.ofSeconds(circuitBreakerOpenDuration));
+    } catch (IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  /**
+   * Identifies the connections that can be shared: same region, endpoint, HTTP client, backends and credentials. Credentials
+   * are only kept as a hash.
+   */
+  private String getConnectionKey (String region, String accessKey, String secretKey, String sessionToken, String customEndpoint,
+                                   boolean useDefaultAWSCredentialsProviderChain, String roleARN, RoleSessionSettings roleSession,
+                                   HttpClientSettings httpClientSettings, SecretFetcher.Engine engine,
+                                   Map<String, String> replicaRegions, int hedgePercentile, boolean parameterStore,
+                                   String invalidationQueueUrl) {
+    String identity = useDefaultAWSCredentialsProviderChain
+            ? ClientRegistry.fingerprint("default-chain")
+            : ClientRegistry.fingerprint("static", accessKey, secretKey, sessionToken);
+    if (StringUtils.isNotEmpty(roleARN)) {
+      identity = ClientRegistry.fingerprint(identity, roleARN, roleSession.getSessionName(),
+              String.valueOf(roleSession.getSessionDuration().getSeconds()), roleSession.getExternalId());
+    }
+    StringBuilder replicas = new StringBuilder();
+    for (Map.Entry<String, String> replica : replicaRegions.entrySet()) {
+      replicas.append(replica.getKey()).append('=').append(getEndpoint(replica.getKey(), replica.getValue())).append(',');
+    }
+    if (replicas.length() > 0) {
+      replicas.append('p').append(hedgePercentile);
+    }
+    return region + "|" + getEndpoint(region, customEndpoint) + "|" + replicas + "|" + engine + "|" + httpClientSettings
+            + "|" + (parameterStore ? "ssm" : "") + "|" + StringUtils.defaultString(invalidationQueueUrl) + "|" + identity;
+  }
+
+  /**
+   * Identifies where the secrets are read from, so that the snapshot store keeps secrets of the same name from another
+   * region, endpoint or account apart. The account is known by the role ARN, or by the access key, kept as a hash;
+   * secret keys and session tokens are left out as they change while the account stays.
+   */
+  private String getSnapshotSource (String region, String customEndpoint, String accessKey,
+                                    boolean useDefaultAWSCredentialsProviderChain, String roleARN) {
+    String account = StringUtils.isNotEmpty(roleARN) ? roleARN
+            : useDefaultAWSCredentialsProviderChain ? "default-chain" : ClientRegistry.fingerprint("static", accessKey);
+    return region + "|" + getEndpoint(region, customEndpoint) + "|" + account;
+  }
+
+  /**
+   * Scans the configured resources for aws-secrets placeholders.
+   *
+   * @return the placeholder keys, or {@code null} when no resources are configured
+   */
+  private Set<String> getPreloadKeys (ConfigurationParameters smParams, ResourceProvider resourceProvider) {
+    String resources = getOptionalStringParameter(smParams, PRELOAD_RESOURCES);
+    if (StringUtils.isBlank(resources)) {
+      return null;
+    }
+    Set<String> keys = new LinkedHashSet<>();
+    for (String resource : resources.split(",")) {
+      if (StringUtils.isBlank(resource)) {
+        continue;
+      }
+      try (InputStream in = resourceProvider.getResourceAsStream(resource.trim())) {
+        if (in == null) {
+          throw new IOException("resource not found");
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+          content.write(buffer, 0, read);
+        }
+        keys.addAll(AWSSecretsManagerConfigurationPropertiesProvider.findPlaceholderKeys(
+                new String(content.toByteArray(), StandardCharsets.UTF_8)));
+      } catch (IOException e) {
+        String errMsg = "Preload resource " + resource.trim() + " cannot be read -- " + e.getMessage();
+        logger.error(errMsg);
+        throw new RuntimeException(errMsg);
+      }
+    }
+    logger.debug("Found {} AWS SM placeholders in {}", keys.size(), resources);
+    return keys;
+  }
+
+  private SnapshotStore getSnapshotStore (ConfigurationParameters smParams) {
+    String directory = getOptionalStringParameter(smParams, SNAPSHOT_DIRECTORY);
+    if (StringUtils.isBlank(directory)) {
+      return null;
+    }
+    long maxAge = getSecondsParameter(smParams, SNAPSHOT_MAX_AGE, DEFAULT_SNAPSHOT_MAX_AGE.getSeconds());
+    try {
+      return new SnapshotStore(Paths.get(directory.trim()),
+              SnapshotStore.resolveKey(getOptionalStringParameter(smParams, SNAPSHOT_KEY)), Duration.ofSeconds(maxAge));
+    } catch (IllegalArgumentException e) {
+      logger.error(e.getMessage());
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  private SecretsManagerConnection createAWSSecretsManager(String region,  String accessKey, String secretKey,
+                                                           String sessionToken, String customEndpoint, boolean useDefaultAWSCredentialsProviderChain, String roleARN,
+                                                           RoleSessionSettings roleSession, HttpClientSettings httpClientSettings,
+                                                           SecretFetcher.Engine engine, Map<String, String> replicaRegions,
+                                                           int hedgePercentile, boolean parameterStore,
+                                                           String invalidationQueueUrl) {
+
+    logger.debug ("Region: [{}], Custom Endpoint: [{}], Try Default Credentials Provider Chain: [{}], RoleARN: [{}], Engine: [{}], HTTP Client: [{}], Replica Regions: [{}]", region,
+            customEndpoint, useDefaultAWSCredentialsProviderChain, roleARN, engine, httpClientSettings, replicaRegions);
 
     URI endpoint = getEndpoint (region, customEndpoint);
+    URI standInEndpoint = getStandInEndpoint(customEndpoint);
+
+    // one blocking HTTP client, and so one connection pool, for the STS, Parameter Store and synchronous Secrets Manager calls;
+    // Secrets Manager calls are retried by each provider's ResilientSecretFetcher rather than by the SDK
+    List<AutoCloseable> resources = new ArrayList<>();
+    SdkHttpClient httpClient = null;
+    if (engine == SecretFetcher.Engine.SYNC || StringUtils.isNotEmpty(roleARN) || parameterStore
+            || invalidationQueueUrl != null) {
+      httpClient = httpClientSettings.build();
+      resources.add(httpClient);
+    }
+    LatencyHistogram assumeRoleLatency = new LatencyHistogram();
+    try {
+      AwsCredentialsProvider awsCredentialsProvider = getAWSCredentialsProvider(region, accessKey, secretKey,
+                sessionToken, useDefaultAWSCredentialsProviderChain, roleARN, roleSession, standInEndpoint, httpClient,
+                assumeRoleLatency, resources);
+      CompletableFuture<Duration> credentialsResolution = resolveCredentials(awsCredentialsProvider);
+
+      SdkAsyncHttpClient asyncHttpClient = null;
+      if (engine == SecretFetcher.Engine.ASYNC) {
+        asyncHttpClient = httpClientSettings.buildAsync();
+        resources.add(asyncHttpClient);
+      }
+      SecretFetcher fetcher = createSecretFetcher(region, endpoint, awsCredentialsProvider, httpClient, asyncHttpClient, resources);
+
+      if (!replicaRegions.isEmpty()) {
+        List<RegionalSecretFetcher.Region> regions = new ArrayList<>();
+        regions.add(new RegionalSecretFetcher.Region(region, fetcher));
+        for (Map.Entry<String, String> replica : replicaRegions.entrySet()) {
+          regions.add(new RegionalSecretFetcher.Region(replica.getKey(), createSecretFetcher(replica.getKey(),
+                  getEndpoint(replica.getKey(), replica.getValue()), awsCredentialsProvider, httpClient, asyncHttpClient, resources)));
+        }
+        RegionalSecretFetcher regionalFetcher = new RegionalSecretFetcher(regions, hedgePercentile);
+        resources.add(regionalFetcher);
+        fetcher = regionalFetcher;
+      }
+
+      // Parameter Store calls keep the SDK's own retry policy
+      SecretBackend parameterBackend = null;
+      if (parameterStore) {
+        SsmClientBuilder ssmClientBuilder = SsmClient.builder()
+                                .region(Region.of(region))
+                                .credentialsProvider(awsCredentialsProvider)
+                                .httpClient(httpClient);
+        if (standInEndpoint != null) {
+          ssmClientBuilder.endpointOverride(standInEndpoint);
+        }
+        SsmClient ssmClient = ssmClientBuilder.build();
+        resources.add(ssmClient);
+        parameterBackend = new ParameterStoreBackend(ssmClient);
+      }
 
-    AwsCredentialsProvider awsCredentialsProvider = getAWSCredentialsProvider(region, accessKey, secretKey,
-              sessionToken, useDefaultAWSCredentialsProviderChain, roleARN, endpoint);
+      SqsInvalidationSource invalidationSource = null;
+      if (invalidationQueueUrl != null) {
+        invalidationSource = createInvalidationSource(region, invalidationQueueUrl, awsCredentialsProvider, httpClient,
+                httpClientSettings, resources);
+      }
+      return new SecretsManagerConnection(fetcher, parameterBackend, invalidationSource, assumeRoleLatency,
+              credentialsResolution, resources);
+    } catch (RuntimeException e) {
+      new SecretsManagerConnection(null, null, null, assumeRoleLatency, null, resources).close();
+      throw e;
+    }
+  }
 
+  /**
+   * Resolves the first credentials on a warm-up thread, so that the STS call of an assumed role, or the search
+   * of the default chain, overlaps with building the clients.
+   */
+  private CompletableFuture<Duration> resolveCredentials (AwsCredentialsProvider awsCredentialsProvider) {
+    return CompletableFuture.supplyAsync(() -> {
+      long start = System.nanoTime();
+      try {
+        AwsCredentials credentials = awsCredentialsProvider.resolveCredentials();
+        logger.debug("Credentials resolved with access Key - {}", credentials.accessKeyId());
+      } catch (RuntimeException e) {
+        logger.error("Failed to resolve the AWS credentials -- {}", e.getMessage());
+        throw e;
+      }
+      return Duration.ofNanos(System.nanoTime() - start);
+    }, WARM_UP_EXECUTOR);
+  }
+
+  private SecretFetcher createSecretFetcher (String region, URI endpoint, AwsCredentialsProvider awsCredentialsProvider,
+                                             SdkHttpClient httpClient, SdkAsyncHttpClient asyncHttpClient, List<AutoCloseable> resources) {
+    if (asyncHttpClient != null) {
+      SecretsManagerAsyncClient secretsClient = SecretsManagerAsyncClient.builder()
+                                                 .region(Region.of(region))
+                                                 .endpointOverride(endpoint)
+                                                 .credentialsProvider(awsCredentialsProvider)
+                                                 .httpClient(asyncHttpClient)
+                                                 .overrideConfiguration(o -> o.retryPolicy(RetryPolicy.none()))
+                                                 .build();
+      resources.add(secretsClient);
+      return new AsyncSecretFetcher(secretsClient);
+    }
     SecretsManagerClient secretsClient = SecretsManagerClient.builder()
                                           .region(Region.of(region))
                                           .endpointOverride(endpoint)
                                           .credentialsProvider(awsCredentialsProvider)
+                                          .httpClient(httpClient)
+                                          .overrideConfiguration(o -> o.retryPolicy(RetryPolicy.none()))
                                           .build();
-    return secretsClient;
+    resources.add(secretsClient);
+    return new SyncSecretFetcher(secretsClient);
+  }
+
+  /**
+   * Creates the consumer of the invalidation queue. The SQS endpoint is the one of the queue URL, so that a local
+   * SQS-compatible stand-in can be used, and the region is taken from AWS queue URLs.
+   */
+  private SqsInvalidationSource createInvalidationSource (String region, String queueUrl, AwsCredentialsProvider awsCredentialsProvider,
+                                                          SdkHttpClient httpClient, HttpClientSettings httpClientSettings,
+                                                          List<AutoCloseable> resources) {
+    URI queue;
+    try {
+      queue = new URI(queueUrl);
+    } catch (Exception e) {
+      queue = null;
+    }
+    if (queue == null || queue.getScheme() == null || queue.getHost() == null) {
+      String errMsg = INVALIDATION_QUEUE_URL + " must be the URL of an SQS queue";
+      logger.error(errMsg);
+      throw new RuntimeException(errMsg);
+    }
+    Matcher awsHost = SQS_HOST_PATTERN.matcher(queue.getHost());
+    String queueRegion = awsHost.matches() ? awsHost.group(1) : region;
+    logger.debug ("Creating an SQS client for queue {} in region {}", queueUrl, queueRegion);
+
+    SqsClient sqsClient = SqsClient.builder()
+                            .region(Region.of(queueRegion))
+                            .endpointOverride(URI.create(queue.getScheme() + "://" + queue.getRawAuthority()))
+                            .credentialsProvider(awsCredentialsProvider)
+                            .httpClient(httpClient)
+                            .build();
+    resources.add(sqsClient);
+    SqsInvalidationSource invalidationSource = new SqsInvalidationSource(sqsClient, queueUrl, httpClientSettings.getSocketTimeout());
+    resources.add(invalidationSource);
+    return invalidationSource;
   }
 
   private URI getEndpoint (String region, String customEndpoint) {
@@ -161,7 +730,8 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
     try {
       if (StringUtils.isNotEmpty(customEndpoint)) {
         logger.debug ("Creating an Endpoint with the Custom Endpoint: {}", customEndpoint);
-        endpoint = new URI("https://" + customEndpoint);
+        // a host name is reached over HTTPS; a URL, such as the http:// address of a local stand-in, is used as is
+        endpoint = new URI(customEndpoint.contains("://") ? customEndpoint : "https://" + customEndpoint);
       }
       else {
         String regionEndpoint = "https://secretsmanager." + region + ".amazonaws.com";
@@ -176,8 +746,22 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
     return endpoint;
   }
 
+  /**
+   * A custom endpoint given as a full URL, such as the {@code http://} address of a local stand-in, serves the STS and
+   * Parameter Store calls as well. A host name is a Secrets Manager VPC endpoint, which only answers Secrets Manager
+   * calls, so STS and Parameter Store then keep their regional endpoints.
+   *
+   * @return the endpoint of the STS and Parameter Store clients, or {@code null} for their regional endpoints
+   */
+  private URI getStandInEndpoint (String customEndpoint) {
+    return StringUtils.isNotEmpty(customEndpoint) && customEndpoint.contains("://") ? URI.create(customEndpoint) : null;
+  }
+
   private AwsCredentialsProvider getAWSCredentialsProvider (String region,  String accessKey, String secretKey, String sessionToken,
-                                                            boolean useDefaultAWSCredentialsProviderChain, String roleARN, URI endpoint) {
+                                                            boolean useDefaultAWSCredentialsProviderChain, String roleARN,
+                                                            RoleSessionSettings roleSession, URI standInEndpoint,
+                                                            SdkHttpClient httpClient, LatencyHistogram assumeRoleLatency,
+                                                            List<AutoCloseable> resources) {
 
     AwsCredentialsProvider awsCredentialsProvider = null;
     if (useDefaultAWSCredentialsProviderChain) {
@@ -199,35 +783,34 @@ public class AWSSecretsManagerConfigurationPropertiesProviderFactory implements
 
     if (StringUtils.isNotEmpty(roleARN)) {
       logger.debug("Role ARN is not Empty - {}", roleARN);
-      StsClient stsClient = StsClient.builder()
+      StsClientBuilder stsClientBuilder = StsClient.builder()
               .credentialsProvider(awsCredentialsProvider)
               .region(Region.of(region))
-              .build();
-      try {
-        AssumeRoleRequest roleRequest = AssumeRoleRequest.builder()
-                .roleArn(roleARN)
-                .roleSessionName("WithRoleARN")
-                .build();
-
-        AssumeRoleResponse roleResponse = stsClient.assumeRole(roleRequest);
-
-        Credentials roleCreds = roleResponse.credentials();
-        // Display the time when the temp creds expire
-        Instant exTime = roleCreds.expiration();
-        sessionToken = roleCreds.sessionToken();
-        accessKey = roleCreds.accessKeyId();
-        secretKey = roleCreds.secretAccessKey();
-        logger.debug("Assume Role Response received with access Key - {} with expiration - {}", accessKey, exTime.toString());
-
-        AwsCredentials awsCredentials = AwsSessionCredentials.create(accessKey, secretKey, sessionToken);
-        awsCredentials = AwsSessionCredentials.create(accessKey, secretKey, sessionToken);
-        logger.debug("Creating Static AWS Credentials Provider for Role: {}", roleARN);
-        awsCredentialsProvider = StaticCredentialsProvider.create(awsCredentials);
-      } catch (StsException e) {
-        String errMsg = e.getMessage();
-        logger.error(errMsg);
-        throw new RuntimeException(errMsg);
+              .httpClient(httpClient);
+      if (standInEndpoint != null) {
+        stsClientBuilder.endpointOverride(standInEndpoint);
       }
+      StsClient stsClient = new TimedStsClient(stsClientBuilder.build(), assumeRoleLatency);
+      resources.add(stsClient);
+
+      AssumeRoleRequest.Builder roleRequest = AssumeRoleRequest.builder()
+              .roleArn(roleARN)
+              .roleSessionName(roleSession.getSessionName())
+              .durationSeconds((int) roleSession.getSessionDuration().getSeconds());
+      if (roleSession.getExternalId() != null) {
+        roleRequest.externalId(roleSession.getExternalId());
+      }
+
+      // renews the session on a background thread ahead of its expiry, so lookups never wait for STS
+      logger.debug("Creating Assume Role Credentials Provider for Role: {}", roleARN);
+      StsAssumeRoleCredentialsProvider roleCredentialsProvider = StsAssumeRoleCredentialsProvider.builder()
+              .stsClient(stsClient)
+              .refreshRequest(roleRequest.build())
+              .asyncCredentialUpdateEnabled(true)
+              .build();
+      resources.add(roleCredentialsProvider);
+
+      awsCredentialsProvider = roleCredentialsProvider;
     }
     return awsCredentialsProvider;
   }
@@ -99,13 +99,117 @@ public class AWSSecretsManagerPropertiesExtensionLoadingDelegate implements Exte
             .withDisplayModel(DisplayModel.builder().displayName("Role ARN").build())
             .describedAs("The Role ARN unique identifies role to assume in order to gain cross account access.");
 
+    addRoleConnectionParametersGroup
+            .withOptionalParameter (AWS_ROLE_SESSION_NAME)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .defaultingTo("WithRoleARN")
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Role Session Name").build())
+            .describedAs("Name of the assumed role session, visible in CloudTrail.");
+
+    addRoleConnectionParametersGroup
+            .withOptionalParameter (AWS_ROLE_SESSION_DURATION)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(3600)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Role Session Duration (seconds)").build())
+            .describedAs("Duration of the assumed role session, between 900 and 43200 seconds. The session is renewed in the background before it expires.");
+
+    addRoleConnectionParametersGroup
+            .withOptionalParameter (AWS_ROLE_EXTERNAL_ID)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Role External ID").build())
+            .describedAs("External ID required by the trust policy of the role, if any.");
+
     addSecretsManagerParametersGroup
-            .withRequiredParameter(SECRET_NAME)
+            .withOptionalParameter(SECRET_NAME)
             .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
             .withExpressionSupport(ExpressionSupport.SUPPORTED)
             .withDisplayModel(DisplayModel.builder().displayName("Secret Name").build())
             .describedAs("Name of the AWS Secret. Prepend Environment if required.");
 
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(SECRET_NAMES)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Secret Names").build())
+            .describedAs("Comma separated names or ARNs of additional AWS Secrets, addressed as aws-secrets::<secret>/<key>. All secrets are fetched in parallel at startup.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(SECRET_FORMATS)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Secret Formats").build())
+            .describedAs("Comma separated <secret name>=<format> pairs, the format being JSON (default), NESTED_JSON, PROPERTIES, YAML or RAW. A RAW secret is exposed as the single key value.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(PARAMETER_PATHS)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Parameter Paths").build())
+            .describedAs("Comma separated SSM Parameter Store paths, e.g. /app/prod. Every parameter below a path is loaded at once and addressed as aws-params::<path>/<name>.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(INVALIDATION_QUEUE_URL)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Invalidation Queue URL").build())
+            .describedAs("URL of an SQS queue receiving the EventBridge events of secret rotations and updates. Each event refreshes the affected secret; without a Cache TTL secrets are then only refreshed by events.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(CACHE_TTL)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(0)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Cache TTL (seconds)").build())
+            .describedAs("Age in seconds after which the cached secret is refreshed in the background. real-time:: keys are served from the cache when set. 0 disables the TTL cache.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(CACHE_MAX_STALENESS)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(0)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Cache Maximum Staleness (seconds)").build())
+            .describedAs("Age in seconds after which cached values are no longer served when background refreshes keep failing. 0 serves stale values indefinitely.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(NEGATIVE_CACHE_TTL)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(30)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Negative Cache TTL (seconds)").build())
+            .describedAs("Seconds during which a key missing from the loaded secret is reported absent without calling AWS. 0 checks with AWS on every miss.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(SNAPSHOT_DIRECTORY)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Snapshot Directory").build())
+            .describedAs("Directory holding an encrypted copy of the secrets. When set, the application starts from that copy and reconciles it with AWS in the background.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(SNAPSHOT_KEY)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Snapshot Key").build())
+            .describedAs("Base64 encoded AES key of the snapshot, or env:NAME, sysprop:NAME or file:PATH to read it from an environment variable, a system property or a file.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(SNAPSHOT_MAX_AGE)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(86400)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Snapshot Maximum Age (seconds)").build())
+            .describedAs("Age in seconds after which the snapshot is no longer used and lookups wait for AWS Secrets Manager.");
+
+    addSecretsManagerParametersGroup
+            .withOptionalParameter(PRELOAD_RESOURCES)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Preload Resources").build())
+            .describedAs("Comma separated configuration files of the application (for example global.xml, config.yaml) to scan for aws-secrets placeholders. The secrets they use are loaded in parallel at startup and the application fails to deploy with a list of every missing key.");
+
     addAdvancedConnectionParametersGroup
             .withOptionalParameter(AWS_CUSTOM_SERVICE_ENDPOINT)
             .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
@@ -120,5 +224,110 @@ public class AWSSecretsManagerPropertiesExtensionLoadingDelegate implements Exte
             .withExpressionSupport(ExpressionSupport.SUPPORTED)
             .withDisplayModel(DisplayModel.builder().displayName("Use Default AWSCredentials Provider Chain").build())
             .describedAs("Set this field to true to obtain credentials from the AWS environment, See: https://docs.aws.amazon.com/sdk-for-java/v2/developer-guide/credentials.html\"");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_HTTP_CLIENT)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType()
+                    .enumOf("APACHE", "URL_CONNECTION").build())
+            .defaultingTo("APACHE")
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("HTTP Client").build())
+            .describedAs("APACHE keeps a pool of persistent connections; URL_CONNECTION uses the lightweight JDK client without a pool. Providers with the same region, endpoint, credentials and HTTP settings share one client.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_ENGINE)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType()
+                    .enumOf("SYNC", "ASYNC").build())
+            .defaultingTo("SYNC")
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Engine").build())
+            .describedAs("ASYNC resolves secrets on the non-blocking Secrets Manager client (Netty), so startup loads and refreshes do not hold a thread each. The HTTP Client setting then only applies to STS.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_MAX_CONNECTIONS)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(10)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Maximum Connections").build())
+            .describedAs("Size of the connection pool of the APACHE HTTP client, or maximum concurrent requests of the ASYNC engine.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_CONNECTION_TIMEOUT)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(2000)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Connection Timeout (milliseconds)").build())
+            .describedAs("Time to wait for a connection to AWS to be established.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_SOCKET_TIMEOUT)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(30000)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Socket Timeout (milliseconds)").build())
+            .describedAs("Time to wait for data from AWS on an established connection.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_REPLICA_REGIONS)
+            .ofType(BaseTypeBuilder.create(JAVA).stringType().build())
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Replica Regions").build())
+            .describedAs("Comma separated regions the secrets are replicated to, each optionally followed by =host[:port] for a custom endpoint. Reads go to the region answering fastest and fail over to the others.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_HEDGE_PERCENTILE)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(95)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Hedging Percentile").build())
+            .describedAs("With replica regions, a read not answered within this percentile of the region's response times is also sent to the next fastest region. 0 disables hedging.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_MAX_RETRIES)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(3)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Maximum Retries").build())
+            .describedAs("Retries of a Secrets Manager call that was throttled or failed with a server or network error. 0 disables retries.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_RETRY_BASE_DELAY)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(100)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Retry Base Delay (milliseconds)").build())
+            .describedAs("Upper bound of the random delay before the first retry, doubled on every further retry.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_RETRY_MAX_DELAY)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(5000)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Retry Maximum Delay (milliseconds)").build())
+            .describedAs("Cap of the delay between two retries.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_MAX_REQUESTS_PER_SECOND)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(50)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Maximum Requests per Second").build())
+            .describedAs("Secrets Manager calls this provider may make per second; further calls wait for their turn. 0 disables the limit.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_CIRCUIT_BREAKER_THRESHOLD)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(5)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Circuit Breaker Threshold").build())
+            .describedAs("Consecutive calls failing after all retries that suspend calls to Secrets Manager; cached secrets keep being served meanwhile. 0 disables the circuit breaker.");
+
+    addAdvancedConnectionParametersGroup
+            .withOptionalParameter(AWS_CIRCUIT_BREAKER_OPEN_DURATION)
+            .ofType(BaseTypeBuilder.create(JAVA).numberType().build())
+            .defaultingTo(30)
+            .withExpressionSupport(ExpressionSupport.SUPPORTED)
+            .withDisplayModel(DisplayModel.builder().displayName("Circuit Breaker Open Duration (seconds)").build())
+            .describedAs("Time calls stay suspended before a single trial call checks whether Secrets Manager has recovered.");
   }
 }
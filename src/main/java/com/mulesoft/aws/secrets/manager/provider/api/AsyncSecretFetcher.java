@@ -0,0 +1,36 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerAsyncClient;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link SecretFetcher} on a {@link SecretsManagerAsyncClient}.
+ */
+class AsyncSecretFetcher implements SecretFetcher {
+
+    private final SecretsManagerAsyncClient client;
+
+    AsyncSecretFetcher(SecretsManagerAsyncClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<GetSecretValueResponse> getSecretValue(GetSecretValueRequest request) {
+        return client.getSecretValue(request);
+    }
+
+    @Override
+    public CompletableFuture<DescribeSecretResponse> describeSecret(DescribeSecretRequest request) {
+        return client.describeSecret(request);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+}
@@ -0,0 +1,498 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION;
+
+/**
+ * In-memory copy of the key/value pairs of a single secret of a {@link SecretBackend}.
+ * <p>
+ * When caching is disabled the secret is fetched on first use and again on every cache miss or
+ * {@code real-time::} lookup. When a TTL is configured only the very first load blocks; afterwards lookups
+ * always return the current snapshot and a refresh is handed to the refresh executor once the snapshot is
+ * older than the TTL. A failed refresh keeps the stale snapshot in place until the maximum staleness is reached.
+ * <p>
+ * Every remote load goes through a {@link SingleFlight} table keyed by secret id and version stage, so
+ * concurrent misses on a cold secret result in a single {@code GetSecretValue} call and a single parse.
+ * Later loads first compare the current version reported by the backend (for Secrets Manager the AWSCURRENT
+ * version from {@code DescribeSecret}) with the version held in memory and skip the download when the secret
+ * has not been rotated. A key missing from the loaded
+ * version is answered locally from its key set for the negative cache TTL after that version was loaded or last
+ * confirmed current.
+ * <p>
+ * Loaded values are published as immutable {@link SecretSnapshot}s through an atomic reference: readers
+ * never lock, and a reader holding a snapshot sees all keys of the same generation. The snapshot a new version
+ * replaces is retired, which zeroes its values; a lookup caught reading it moves on to the new snapshot.
+ * <p>
+ * With a {@link SnapshotStore} every newly loaded version is also written to disk. At startup the stored copy
+ * is published straight away and reconciled with AWS in the background; once it is older than the store's
+ * maximum age, lookups block on a remote fetch again.
+ * <p>
+ * An {@link #invalidateAsync() invalidation} refreshes the snapshot as soon as the secret is known to have
+ * changed, which lets secrets be cached without a TTL. Without caching it reloads the snapshot plain lookups
+ * are answered from.
+ * <p>
+ * While AWS Secrets Manager is unavailable ({@link SecretsManagerUnavailableException}), {@code real-time::}
+ * lookups fall back to the last loaded snapshot instead of failing.
+ */
+class CachedSecret {
+
+    private final static Logger logger = LoggerFactory.getLogger(CachedSecret.class);
+
+    private final SecretBackend backend;
+
+    private final String secretName;
+
+    private final SecretCacheSettings cacheSettings;
+
+    private final Executor refreshExecutor;
+
+    private final SingleFlight<String, SecretSnapshot> inFlightLoads;
+
+    private final String flightKey;
+
+    private final SnapshotStore snapshotStore;
+
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+
+    private final Object loadLock = new Object();
+
+    private final AtomicReference<SecretSnapshot> snapshot = new AtomicReference<>(SecretSnapshot.EMPTY);
+
+    private final SecretCacheStatistics statistics;
+
+    // System.nanoTime() of the next background refresh attempt
+    private volatile long refreshDueAt;
+
+    // snapshot restored from disk while it has not been replaced by a remote load, and the System.nanoTime()
+    // at which it exceeds the maximum age of the snapshot store
+    private volatile SecretSnapshot restoredSnapshot;
+
+    private volatile long restoredExpiresAt;
+
+    // System.nanoTime() of the last snapshot written to disk
+    private volatile long persistedAt;
+
+    CachedSecret(SecretsManagerClient secretsManagerClient, String secretName,
+                 SecretCacheSettings cacheSettings, Executor refreshExecutor,
+                 SingleFlight<String, SecretSnapshot> inFlightLoads) {
+        this(new SecretsManagerBackend(new SyncSecretFetcher(secretsManagerClient)), secretName, cacheSettings,
+                refreshExecutor, inFlightLoads, null);
+    }
+
+    /**
+     * @param refreshExecutor runs background refreshes; may run them on the calling thread when the backend is
+     *                        non-blocking
+     * @param inFlightLoads   loads in flight, shared by the secrets of one backend
+     * @param snapshotStore   store to restore the secret from and to persist loaded versions to, may be {@code null}
+     */
+    CachedSecret(SecretBackend backend, String secretName,
+                 SecretCacheSettings cacheSettings, Executor refreshExecutor,
+                 SingleFlight<String, SecretSnapshot> inFlightLoads, SnapshotStore snapshotStore) {
+        this.backend = backend;
+        this.secretName = secretName;
+        this.cacheSettings = cacheSettings;
+        this.refreshExecutor = refreshExecutor;
+        this.inFlightLoads = inFlightLoads;
+        this.flightKey = secretName + "|" + AWS_CURRENT_VERSION;
+        this.snapshotStore = snapshotStore;
+        this.statistics = new SecretCacheStatistics(secretName, snapshot::get);
+    }
+
+    String getSecretName() {
+        return secretName;
+    }
+
+    SecretBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return the snapshot currently published for this secret, never {@code null}
+     */
+    SecretSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Resolves a key of this secret.
+     *
+     * @param secretKey key within the secret's JSON document
+     * @param realTime  whether the lookup used the {@code real-time::} prefix
+     * @return the value, or {@code null} when the key is not present
+     */
+    String get(String secretKey, boolean realTime) {
+        while (true) {
+            try {
+                return lookup(secretKey, realTime);
+            } catch (RetiredSnapshotException e) {
+                // a newer version was published while the key was read, read it from that one
+            }
+        }
+    }
+
+    /**
+     * @return whether the current version of the secret holds the key, without loading it
+     */
+    boolean containsKey(String secretKey) {
+        return snapshot.get().containsKey(secretKey);
+    }
+
+    private String lookup(String secretKey, boolean realTime) {
+        if (restoredSnapshot != null) {
+            checkRestoredSnapshot();
+        }
+
+        if (cacheSettings.isCachingEnabled()) {
+            return getFromSnapshot(secretKey);
+        }
+
+        if (realTime) {
+            statistics.recordMiss();
+            try {
+                return loadSecret(false).extract(secretKey);
+            } catch (SecretsManagerUnavailableException e) {
+                return getFromLastSnapshot(secretKey, e);
+            }
+        }
+
+        SecretSnapshot current = snapshot.get();
+        if (current.containsKey(secretKey)) {
+            if (logger.isDebugEnabled())
+                logger.debug("Cache Hit for key: {}", secretKey);
+            statistics.recordHit();
+            return current.get(secretKey);
+        }
+
+        if (isKnownAbsent(current)) {
+            if (logger.isDebugEnabled())
+                logger.debug("Key {} is not part of version {} of secret {}", secretKey, current.getVersionId(), secretName);
+            statistics.recordNegativeCacheHit();
+            return null;
+        }
+
+        statistics.recordMiss();
+        return loadSecret(true).get(secretKey);
+    }
+
+    /**
+     * Answers a lookup from the last loaded snapshot while AWS cannot be reached, or rethrows the failure when
+     * nothing was loaded yet.
+     */
+    private String getFromLastSnapshot(String secretKey, SecretsManagerUnavailableException failure) {
+        SecretSnapshot current = snapshot.get();
+        if (!current.isLoaded()) {
+            throw failure;
+        }
+        if (logger.isDebugEnabled())
+            logger.debug("AWS SM is unavailable, serving key {} from version {} of secret {} -- {}",
+                    secretKey, current.getVersionId(), secretName, failure.getMessage());
+        return current.get(secretKey);
+    }
+
+    /**
+     * Whether a key missing from the version held in memory can be reported absent without asking AWS. The key
+     * set of that version is trusted for the negative cache TTL after it was loaded or confirmed current, so any
+     * number of unknown keys cost no remote call until then, and a single version check afterwards.
+     */
+    private boolean isKnownAbsent(SecretSnapshot current) {
+        return current.isLoaded()
+                && System.nanoTime() - current.getLoadedAt() < cacheSettings.getNegativeCacheTtl().toNanos();
+    }
+
+    SecretCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Loads the secret ahead of its first lookup, unless it is already loaded.
+     */
+    CompletableFuture<SecretSnapshot> loadAsync() {
+        SecretSnapshot current = snapshot.get();
+        if (current.isLoaded()) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return cacheSettings.isCachingEnabled() ? refreshAsync() : loadSecretAsync(true);
+    }
+
+    /**
+     * Publishes the copy of the secret held by the snapshot store, if there is one that is recent enough.
+     *
+     * @return whether a snapshot was restored
+     */
+    boolean restore() {
+        if (snapshotStore == null) {
+            return false;
+        }
+        SecretSnapshot restored;
+        try {
+            restored = snapshotStore.load(secretName);
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Snapshot of secret {} cannot be read, fetching it from AWS SM -- {}", secretName, e.toString());
+            return false;
+        }
+        if (restored == null || !snapshot.compareAndSet(SecretSnapshot.EMPTY, restored)) {
+            return false;
+        }
+        restoredExpiresAt = restored.getLoadedAt() + snapshotStore.getMaxAge().toNanos();
+        restoredSnapshot = restored;
+        persistedAt = restored.getLoadedAt();
+        logger.info("Restored secret {} version {} from the local snapshot", secretName, restored.getVersionId());
+        return true;
+    }
+
+    /**
+     * Refreshes the secret after a notification that it changed. A load already in flight may have read the
+     * previous version, so the refresh only starts once that load has completed; the version check still skips
+     * the download when the notified version is already held. Without caching the snapshot held since the
+     * last miss is reloaded too, as plain lookups keep answering from it; a secret not loaded yet is left to
+     * its first lookup.
+     */
+    CompletableFuture<SecretSnapshot> invalidateAsync() {
+        statistics.recordInvalidation();
+        if (!cacheSettings.isCachingEnabled() && !snapshot.get().isLoaded()) {
+            return CompletableFuture.completedFuture(snapshot.get());
+        }
+        CompletableFuture<SecretSnapshot> inFlight = inFlightLoads.get(flightKey);
+        CompletableFuture<SecretSnapshot> previous = inFlight == null
+                ? CompletableFuture.completedFuture(null)
+                : inFlight.exceptionally(failure -> null);
+        return previous.thenComposeAsync(ignored -> reloadAsync(), refreshExecutor);
+    }
+
+    /**
+     * Brings a restored snapshot up to date with AWS.
+     */
+    CompletableFuture<SecretSnapshot> reconcileAsync() {
+        return reloadAsync();
+    }
+
+    private CompletableFuture<SecretSnapshot> reloadAsync() {
+        return cacheSettings.isCachingEnabled() ? refreshAsync() : loadSecretAsync(true);
+    }
+
+    /**
+     * Drops the restored snapshot once a remote load has replaced it, and forces that load when the restored
+     * snapshot has exceeded the maximum age of the snapshot store.
+     */
+    private void checkRestoredSnapshot() {
+        SecretSnapshot restored = restoredSnapshot;
+        if (restored == null) {
+            return;
+        }
+        if (snapshot.get() != restored) {
+            restoredSnapshot = null;
+        } else if (System.nanoTime() - restoredExpiresAt >= 0) {
+            synchronized (loadLock) {
+                if (snapshot.get() == restored) {
+                    logger.warn("Snapshot of secret {} restored from disk exceeded its maximum age of {}, fetching it synchronously",
+                            secretName, snapshotStore.getMaxAge());
+                    statistics.recordMiss();
+                    SingleFlight.await(reconcileAsync());
+                }
+            }
+            restoredSnapshot = null;
+        }
+    }
+
+    private String getFromSnapshot(String secretKey) {
+        SecretSnapshot current = snapshot.get();
+        if (!current.isLoaded()) {
+            synchronized (loadLock) {
+                current = snapshot.get();
+                if (!current.isLoaded()) {
+                    logger.debug("Initial load of secret {}", secretName);
+                    statistics.recordMiss();
+                    return refresh().get(secretKey);
+                }
+            }
+        }
+
+        long now = System.nanoTime();
+        if (cacheSettings.hasMaxStaleness() && now - current.getLoadedAt() > cacheSettings.getMaxStaleness().toNanos()) {
+            synchronized (loadLock) {
+                current = snapshot.get();
+                if (System.nanoTime() - current.getLoadedAt() > cacheSettings.getMaxStaleness().toNanos()) {
+                    logger.warn("Cached secret {} exceeded its maximum staleness of {}, fetching it synchronously",
+                            secretName, cacheSettings.getMaxStaleness());
+                    statistics.recordMiss();
+                    return refresh().get(secretKey);
+                }
+            }
+        } else if (now - refreshDueAt >= 0) {
+            scheduleRefresh();
+        }
+        if (logger.isDebugEnabled())
+            logger.debug("Snapshot lookup for key: {}", secretKey);
+        statistics.recordHit();
+        return current.get(secretKey);
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshInProgress.compareAndSet(false, true))
+            return;
+        try {
+            refreshExecutor.execute(() -> refreshAsync().whenComplete((loaded, failure) -> {
+                if (failure != null) {
+                    // retry no earlier than one TTL from now, serving the stale snapshot meanwhile
+                    refreshDueAt = System.nanoTime() + cacheSettings.getTtl().toNanos();
+                    logger.warn("Background refresh of secret {} failed, serving the cached values -- {}",
+                            secretName, SingleFlight.unwrap(failure).getMessage());
+                }
+                refreshInProgress.set(false);
+            }));
+        } catch (RejectedExecutionException e) {
+            refreshInProgress.set(false);
+            logger.debug("Refresh executor is shut down, skipping refresh of secret {}", secretName);
+        }
+    }
+
+    private SecretSnapshot refresh() {
+        return SingleFlight.await(refreshAsync());
+    }
+
+    private CompletableFuture<SecretSnapshot> refreshAsync() {
+        return loadSecretAsync(true).thenApply(loaded -> {
+            refreshDueAt = loaded.getLoadedAt() + cacheSettings.getTtl().toNanos();
+            return loaded;
+        });
+    }
+
+    private CompletableFuture<SecretPayload> fetchSecret() {
+        long start = System.nanoTime();
+        return backend.getSecret(secretName).thenApply(payload -> {
+            statistics.recordFetch(start);
+            return payload;
+        });
+    }
+
+    /**
+     * Returns the current version id reported by the backend, or {@code null} when it cannot be determined.
+     */
+    private CompletableFuture<String> describeCurrentVersion() {
+        long start = System.nanoTime();
+        return backend.getCurrentVersion(secretName).thenApply(versionId -> {
+            if (versionId != null) {
+                statistics.recordVersionCheck(start);
+            }
+            return versionId;
+        });
+    }
+
+    private SecretSnapshot loadSecret(boolean parse) {
+        return SingleFlight.await(loadSecretAsync(parse));
+    }
+
+    /**
+     * Brings the snapshot up to the current version of the secret, publishes it and returns it. Once a version
+     * has been loaded, the payload is only downloaded and parsed again when {@code DescribeSecret} reports a
+     * different AWSCURRENT version. The remote calls are shared with any concurrent load of the same secret
+     * id and version stage.
+     *
+     * @param parse whether the payload must be parsed before the snapshot is published. {@code real-time::}
+     *              lookups pass {@code false} so that they only extract the requested key; the payload is then
+     *              still validated, without decoding its values, before it replaces the previous version.
+     */
+    private CompletableFuture<SecretSnapshot> loadSecretAsync(boolean parse) {
+        CompletableFuture<SecretSnapshot> loaded = inFlightLoads.execute(flightKey,
+                () -> loadCurrentVersion(parse).whenComplete((snapshot, failure) -> {
+                    if (failure != null) {
+                        statistics.recordRefreshFailure();
+                    }
+                }));
+        return parse ? loaded.thenApply(this::parseSnapshot) : loaded;
+    }
+
+    private CompletableFuture<SecretSnapshot> loadCurrentVersion(boolean parse) {
+        SecretSnapshot current = snapshot.get();
+        CompletableFuture<String> currentVersion = current.isLoaded() && current.getVersionId() != null
+                ? describeCurrentVersion()
+                : CompletableFuture.completedFuture(null);
+        return currentVersion.thenCompose(versionId -> {
+            if (current.getVersionId() != null && current.getVersionId().equals(versionId)) {
+                return CompletableFuture.completedFuture(revalidate(current));
+            }
+            return fetchSecret().thenApply(payload -> publish(current, payload, parse));
+        });
+    }
+
+    private SecretSnapshot revalidate(SecretSnapshot current) {
+        if (logger.isDebugEnabled())
+            logger.debug("Secret {} is still at version {}, skipping download", secretName, current.getVersionId());
+        statistics.recordVersionCheckSkip();
+        SecretSnapshot revalidated = current.revalidated(System.nanoTime());
+        snapshot.set(revalidated);
+        if (snapshotStore != null && revalidated.getLoadedAt() - persistedAt > snapshotStore.getMaxAge().toNanos() / 4) {
+            persist(revalidated);
+        }
+        return revalidated;
+    }
+
+    private SecretSnapshot publish(SecretSnapshot current, SecretPayload payload, boolean parse) {
+        SecretSnapshot fetched = payload.isDocument()
+                ? SecretSnapshot.unparsed(current.getGeneration() + 1, payload, System.nanoTime(), statistics.getParseTime())
+                : new SecretSnapshot(current.getGeneration() + 1, payload.getVersionId(), payload.getValues(), System.nanoTime());
+        // checked before it replaces the previous version, so that a malformed payload never retires a good one
+        if (parse) {
+            parseSnapshot(fetched);
+        } else {
+            validateSnapshot(fetched);
+        }
+        SecretSnapshot previous = snapshot.getAndSet(fetched);
+        if (snapshotStore != null) {
+            persist(fetched);
+        }
+        previous.retire();
+        return fetched;
+    }
+
+    /**
+     * Drops the values held in memory, zeroing them. Called when the provider is disposed.
+     */
+    void retire() {
+        snapshot.getAndSet(SecretSnapshot.EMPTY).retire();
+        restoredSnapshot = null;
+    }
+
+    /**
+     * Writes the snapshot to the snapshot store. Failures only cost the next cold start its head start, so
+     * they are logged and otherwise ignored.
+     */
+    private void persist(SecretSnapshot loaded) {
+        try {
+            snapshotStore.save(secretName, loaded);
+            persistedAt = loaded.getLoadedAt();
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            logger.warn("Failed to write the snapshot of secret {} -- {}", secretName, e.toString());
+        }
+    }
+
+    private SecretSnapshot parseSnapshot(SecretSnapshot loaded) {
+        try {
+            return loaded.parsed();
+        } catch (IllegalStateException e) {
+            logger.error("Failed to Refresh the Cache -- {} ", e.getMessage());
+            throw new RuntimeException("Failed to Refresh the Cache from AWS SM");
+        }
+    }
+
+    private void validateSnapshot(SecretSnapshot loaded) {
+        try {
+            loaded.validated();
+        } catch (IllegalStateException e) {
+            logger.error("Failed to Refresh the Cache -- {} ", e.getMessage());
+            throw new RuntimeException("Failed to Refresh the Cache from AWS SM");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Suspends remote calls after a run of consecutive failures. Once the open duration has elapsed a single trial
+ * call is let through: its success closes the breaker again, its failure keeps it open for another period.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Outcome of {@link #tryAcquire()}.
+     */
+    enum Admission {
+        REJECTED,
+        ADMITTED,
+        /**
+         * The single call let through after the open duration. It is not retried: its outcome decides the state
+         * at once, as no other call can be admitted until it is reported.
+         */
+        TRIAL
+    }
+
+    private final int threshold;
+
+    private final long openNanos;
+
+    private final Consumer<State> listener;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openUntil;
+
+    /**
+     * @param threshold    consecutive failures opening the breaker, {@code 0} to never open it
+     * @param openDuration time the breaker stays open before the trial call
+     * @param listener     notified of every state change, while the breaker is locked
+     */
+    CircuitBreaker(int threshold, Duration openDuration, Consumer<State> listener) {
+        this.threshold = threshold;
+        this.openNanos = openDuration.toNanos();
+        this.listener = listener;
+    }
+
+    /**
+     * @return whether a call may be made now, and whether it is the trial call
+     */
+    synchronized Admission tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return Admission.ADMITTED;
+            case OPEN:
+                if (System.nanoTime() - openUntil >= 0) {
+                    transition(State.HALF_OPEN);
+                    return Admission.TRIAL;
+                }
+                return Admission.REJECTED;
+            default:
+                // the trial call is still running
+                return Admission.REJECTED;
+        }
+    }
+
+    /**
+     * Records a call that reached AWS and got an answer, even an error answer such as a missing secret.
+     */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a call that AWS answered by throttling it. AWS is up, so the trial call closes the breaker as on a
+     * success, but the run of failures is neither extended nor cleared.
+     */
+    synchronized void onThrottled() {
+        if (state == State.HALF_OPEN) {
+            consecutiveFailures = 0;
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a call that failed because AWS or the network is degraded.
+     */
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && threshold > 0 && consecutiveFailures >= threshold)) {
+            openUntil = System.nanoTime() + openNanos;
+            transition(State.OPEN);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void transition(State next) {
+        state = next;
+        listener.accept(next);
+    }
+}
@@ -0,0 +1,161 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Reference-counted registry of connections shared by the providers of a runtime. Providers asking for the
+ * same key get the same connection, and with it the same HTTP connection pool and credential sessions; the
+ * connection is closed when the last provider using it releases its lease.
+ *
+ * @param <T> shared connection
+ */
+final class ClientRegistry<T extends AutoCloseable> {
+
+    private final static Logger logger = LoggerFactory.getLogger(ClientRegistry.class);
+
+    private final Map<String, CompletableFuture<Entry<T>>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a lease on the connection registered under {@code key}, creating it with {@code factory} when
+     * there is none. Concurrent deployments with the same key wait for the connection built by the first of
+     * them rather than building it twice; connections under different keys are built in parallel, the factory
+     * running outside of any registry lock. A failed build is not registered, and its failure is thrown to the
+     * deployments that were waiting for it.
+     */
+    Lease<T> acquire(String key, Supplier<T> factory) {
+        while (true) {
+            CompletableFuture<Entry<T>> created = new CompletableFuture<>();
+            CompletableFuture<Entry<T>> future = entries.computeIfAbsent(key, k -> created);
+            if (future == created) {
+                return new Lease<>(this, key, build(key, created, factory));
+            }
+            Entry<T> entry;
+            try {
+                entry = future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            synchronized (entry) {
+                if (entry.references == 0) {
+                    // released by its last provider meanwhile, and already unregistered
+                    continue;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Sharing connection with {} other provider(s)", entry.references);
+                }
+                entry.references++;
+            }
+            return new Lease<>(this, key, entry);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Entry<T> build(String key, CompletableFuture<Entry<T>> created, Supplier<T> factory) {
+        T connection;
+        try {
+            connection = factory.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+        // counts the lease of the building provider before any other provider can see the entry
+        Entry<T> entry = new Entry<>(connection);
+        entry.references = 1;
+        created.complete(entry);
+        return entry;
+    }
+
+    private void release(String key, Entry<T> entry) {
+        synchronized (entry) {
+            if (--entry.references > 0) {
+                return;
+            }
+            CompletableFuture<Entry<T>> future = entries.get(key);
+            if (future != null && future.getNow(null) == entry) {
+                entries.remove(key, future);
+            }
+        }
+        try {
+            entry.connection.close();
+        } catch (Exception e) {
+            logger.warn("Failed to close the AWS connection -- {}", e.toString());
+        }
+    }
+
+    /**
+     * Hashes the parts of a key that must not be kept in clear text, such as secret access keys.
+     */
+    static String fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            StringBuilder fingerprint = new StringBuilder();
+            for (byte b : digest.digest()) {
+                fingerprint.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return fingerprint.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T connection;
+
+        private int references;
+
+        private Entry(T connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Use of a shared connection by one provider. Closing the lease releases it; closing it again has no effect.
+     */
+    static final class Lease<T extends AutoCloseable> implements AutoCloseable {
+
+        private final ClientRegistry<T> registry;
+
+        private final String key;
+
+        private final Entry<T> entry;
+
+        private boolean released;
+
+        private Lease(ClientRegistry<T> registry, String key, Entry<T> entry) {
+            this.registry = registry;
+            this.key = key;
+            this.entry = entry;
+        }
+
+        T get() {
+            return entry.connection;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                registry.release(key, entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Key/value pairs of one version of a secret in a compact, immutable layout: the keys in a sorted array searched
+ * with a binary search, and all values UTF-8 encoded back to back in a single byte array. Next to a
+ * {@code HashMap<String, String>} this saves the table, the entry objects and the value strings; a value only
+ * exists as a {@code String} while a lookup returns it.
+ * <p>
+ * {@link #zeroize()} overwrites the values once the version is retired. Lookups validate an optimistic read
+ * stamp after decoding, so a lookup racing with the zeroing fails with {@link RetiredSnapshotException} rather
+ * than returning a blanked value.
+ */
+final class CompactSecretValues {
+
+    static final CompactSecretValues EMPTY = new CompactSecretValues(new String[0], new int[1], new byte[0]);
+
+    // sorted
+    private final String[] keys;
+
+    // value i is data[offsets[i]] up to data[offsets[i + 1]]
+    private final int[] offsets;
+
+    private final byte[] data;
+
+    // write-locked for good once the values are zeroed
+    private final StampedLock retirement = new StampedLock();
+
+    private CompactSecretValues(String[] keys, int[] offsets, byte[] data) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    static CompactSecretValues of(Map<String, String> values) {
+        Builder builder = new Builder(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                builder.put(entry.getKey(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return builder.build();
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return the value, or {@code null} when the key is not present
+     * @throws RetiredSnapshotException when the values were zeroed
+     */
+    String get(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            return null;
+        }
+        long stamp = retirement.tryOptimisticRead();
+        String value = new String(data, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        if (!retirement.validate(stamp)) {
+            throw new RetiredSnapshotException();
+        }
+        return value;
+    }
+
+    boolean containsKey(String key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    Set<String> keySet() {
+        List<String> sortedKeys = Collections.unmodifiableList(Arrays.asList(keys));
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return sortedKeys.iterator();
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return key instanceof String && containsKey((String) key);
+            }
+        };
+    }
+
+    /**
+     * Writes the length and the UTF-8 bytes of a value, without decoding it.
+     *
+     * @throws RetiredSnapshotException when the values were zeroed
+     */
+    void writeValue(int index, DataOutput out) throws IOException {
+        if (retirement.isWriteLocked()) {
+            throw new RetiredSnapshotException();
+        }
+        out.writeInt(offsets[index + 1] - offsets[index]);
+        out.write(data, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    /**
+     * Overwrites every value with zeros. Subsequent lookups of present keys fail.
+     */
+    void zeroize() {
+        if (this != EMPTY && retirement.tryWriteLock() != 0) {
+            Arrays.fill(data, (byte) 0);
+        }
+    }
+
+    boolean isZeroized() {
+        return retirement.isWriteLocked();
+    }
+
+    /**
+     * @return bytes held by the values, keys excluded
+     */
+    int getValueBytes() {
+        return data.length;
+    }
+
+    /**
+     * Collects values as UTF-8 bytes. A key put twice keeps its last value. The byte arrays handed in are zeroed
+     * by {@link #build()} once copied.
+     */
+    static final class Builder {
+
+        private final List<String> keys;
+
+        private final List<byte[]> values;
+
+        private CharsetEncoder encoder;
+
+        Builder(int expectedSize) {
+            this.keys = new ArrayList<>(expectedSize);
+            this.values = new ArrayList<>(expectedSize);
+        }
+
+        Builder put(String key, byte[] value) {
+            keys.add(key);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Encodes a value straight from a character buffer, such as the one of a JSON parser, so that no
+         * {@code String} copy of it is created.
+         */
+        Builder put(String key, char[] characters, int offset, int length) {
+            if (encoder == null) {
+                encoder = StandardCharsets.UTF_8.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            try {
+                ByteBuffer encoded = encoder.encode(CharBuffer.wrap(characters, offset, length));
+                byte[] value = new byte[encoded.remaining()];
+                encoded.get(value);
+                if (encoded.hasArray()) {
+                    Arrays.fill(encoded.array(), (byte) 0);
+                }
+                return put(key, value);
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException("Cannot encode the value of key " + key, e);
+            }
+        }
+
+        CompactSecretValues build() {
+            int size = keys.size();
+            if (size == 0) {
+                return EMPTY;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // stable, so the last of duplicate keys comes last
+            Arrays.sort(order, Comparator.comparing(keys::get));
+
+            List<Integer> kept = new ArrayList<>(size);
+            int length = 0;
+            for (int i = 0; i < size; i++) {
+                if (i + 1 < size && keys.get(order[i]).equals(keys.get(order[i + 1]))) {
+                    continue;
+                }
+                kept.add(order[i]);
+                length += values.get(order[i]).length;
+            }
+
+            String[] sortedKeys = new String[kept.size()];
+            int[] offsets = new int[kept.size() + 1];
+            byte[] data = new byte[length];
+            for (int i = 0; i < kept.size(); i++) {
+                int entry = kept.get(i);
+                byte[] value = values.get(entry);
+                sortedKeys[i] = keys.get(entry);
+                System.arraycopy(value, 0, data, offsets[i], value.length);
+                offsets[i + 1] = offsets[i] + value.length;
+            }
+            for (byte[] value : values) {
+                Arrays.fill(value, (byte) 0);
+            }
+            values.clear();
+            keys.clear();
+            return new CompactSecretValues(sortedKeys, offsets, data);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * {@link SecretBackend} whose backend is still being created, typically while its SDK clients are built on a
+ * warm-up thread. Calls made meanwhile return straight away, chained on the creation, and are made on the warm-up
+ * executor once it completes; later calls go directly to the backend. When the creation fails, every call fails
+ * with its cause.
+ */
+final class DeferredSecretBackend implements SecretBackend {
+
+    private final String name;
+
+    private final boolean nonBlocking;
+
+    private final CompletableFuture<? extends SecretBackend> backend;
+
+    private final Executor warmUpExecutor;
+
+    /**
+     * @param name        name of the backend being created, reported before it exists
+     * @param nonBlocking whether the backend being created is non-blocking
+     */
+    DeferredSecretBackend(String name, boolean nonBlocking, CompletableFuture<? extends SecretBackend> backend,
+                          Executor warmUpExecutor) {
+        this.name = name;
+        this.nonBlocking = nonBlocking;
+        this.backend = backend;
+        this.warmUpExecutor = warmUpExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CompletableFuture<String> getCurrentVersion(String secretName) {
+        return call(created -> created.getCurrentVersion(secretName));
+    }
+
+    @Override
+    public CompletableFuture<SecretPayload> getSecret(String secretName) {
+        return call(created -> created.getSecret(secretName));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return nonBlocking;
+    }
+
+    private <T> CompletableFuture<T> call(Function<SecretBackend, CompletableFuture<T>> call) {
+        if (backend.isDone() && !backend.isCompletedExceptionally()) {
+            return call.apply(backend.join());
+        }
+        return backend.thenComposeAsync(call, warmUpExecutor);
+    }
+}
@@ -0,0 +1,85 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+import java.time.Duration;
+
+/**
+ * HTTP client used for the Secrets Manager and STS calls of a connection.
+ * <p>
+ * {@link Type#URL_CONNECTION} relies on the JDK and opens no pool or threads of its own, which suits the
+ * handful of calls made by a provider refreshing a few secrets. {@link Type#APACHE} keeps a pool of
+ * up to {@code maxConnections} persistent connections for providers with many secrets or frequent refreshes.
+ * The {@link SecretFetcher.Engine#ASYNC asynchronous engine} always uses the non-blocking Netty client, with the
+ * same connection limit and timeouts.
+ */
+final class HttpClientSettings {
+
+    enum Type {
+        URL_CONNECTION, APACHE
+    }
+
+    static final int DEFAULT_MAX_CONNECTIONS = 10;
+
+    static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+
+    static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Type type;
+
+    private final int maxConnections;
+
+    private final Duration connectionTimeout;
+
+    private final Duration socketTimeout;
+
+    HttpClientSettings(Type type, int maxConnections, Duration connectionTimeout, Duration socketTimeout) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Maximum connections must be at least 1");
+        }
+        if (connectionTimeout.isNegative() || connectionTimeout.isZero() || socketTimeout.isNegative() || socketTimeout.isZero()) {
+            throw new IllegalArgumentException("Connection and socket timeouts must be positive");
+        }
+        this.type = type;
+        this.maxConnections = maxConnections;
+        this.connectionTimeout = connectionTimeout;
+        this.socketTimeout = socketTimeout;
+    }
+
+    Duration getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    SdkHttpClient build() {
+        if (type == Type.APACHE) {
+            return ApacheHttpClient.builder()
+                    .maxConnections(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .socketTimeout(socketTimeout)
+                    .build();
+        }
+        return UrlConnectionHttpClient.builder()
+                .connectionTimeout(connectionTimeout)
+                .socketTimeout(socketTimeout)
+                .build();
+    }
+
+    SdkAsyncHttpClient buildAsync() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .connectionTimeout(connectionTimeout)
+                .readTimeout(socketTimeout)
+                .writeTimeout(socketTimeout)
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return type + "(maxConnections=" + maxConnections + ", connectionTimeout=" + connectionTimeout.toMillis()
+                + "ms, socketTimeout=" + socketTimeout.toMillis() + "ms)";
+    }
+}
@@ -0,0 +1,18 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.function.Consumer;
+
+/**
+ * Source of notifications that a secret changed, such as rotation events. Each notification makes the
+ * subscribed providers refresh the secrets it refers to, so that changes are picked up without polling.
+ * <p>
+ * Implementations must be thread-safe and may deliver notifications on a thread of their own.
+ */
+public interface InvalidationSource {
+
+    /**
+     * Delivers the ids of changed secrets to {@code listener} until the returned handle is closed. An id is a
+     * Secrets Manager secret name or ARN, or the name of a Parameter Store parameter.
+     */
+    AutoCloseable subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,97 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets from 1 microsecond to about 67 seconds. Percentiles are
+ * reported as the upper bound of the bucket they fall in, which is precise enough to spot regressions.
+ */
+final class LatencyHistogram {
+
+    private static final long FIRST_BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static final int BUCKETS = 28;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    double getMeanMillis() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / (double) samples / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @param quantile between 0 and 1, for example 0.99
+     * @return upper bound in milliseconds of the bucket holding the quantile, 0 when nothing was recorded
+     */
+    double getPercentileMillis(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long samples = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            samples += counts[i];
+        }
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundNanos(i), maxNanos.get()) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            }
+        }
+        return getMaxMillis();
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos <= FIRST_BUCKET_NANOS) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BUCKET_NANOS);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBoundNanos(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : FIRST_BUCKET_NANOS << bucket;
+    }
+}
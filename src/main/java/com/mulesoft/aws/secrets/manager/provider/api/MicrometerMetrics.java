@@ -0,0 +1,72 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes provider statistics to Micrometer's global registry. Only loaded when Micrometer is on the
+ * classpath, see {@link ProviderStatistics#register(List, java.util.function.ToIntFunction)}.
+ */
+final class MicrometerMetrics {
+
+    private static final String PREFIX = "aws.secrets.manager.";
+
+    private MicrometerMetrics() {
+    }
+
+    /**
+     * @return a handle removing the registered meters when closed
+     */
+    static AutoCloseable bind(ProviderStatistics provider, List<SecretCacheStatistics> secrets) {
+        MeterRegistry registry = Metrics.globalRegistry;
+        List<Meter> meters = new ArrayList<>();
+        Tags providerTags = Tags.of("instance", String.valueOf(provider.getInstance()));
+
+        meters.add(counter(registry, "sts.assume.role.calls", providerTags, provider, ProviderStatistics::getAssumeRoleCalls));
+        meters.add(gauge(registry, "sts.assume.role.latency.p99", providerTags, provider, ProviderStatistics::getAssumeRoleLatencyP99Millis));
+        meters.add(counter(registry, "retries", providerTags, provider, ProviderStatistics::getRetries));
+        meters.add(counter(registry, "throttling.errors", providerTags, provider, ProviderStatistics::getThrottlingErrors));
+        meters.add(counter(registry, "rate.limit.delays", providerTags, provider, ProviderStatistics::getRateLimitDelays));
+        meters.add(counter(registry, "rejected.calls", providerTags, provider, ProviderStatistics::getRejectedCalls));
+        meters.add(Gauge.builder(PREFIX + "circuit.breaker.open", provider, ProviderStatistics::getCircuitBreakerOpen)
+                .tags(providerTags).register(registry));
+
+        for (SecretCacheStatistics secret : secrets) {
+            Tags tags = providerTags.and("secret", secret.getSecretName());
+            meters.add(counter(registry, "cache.hits", tags, secret, SecretCacheStatistics::getHits));
+            meters.add(counter(registry, "cache.misses", tags, secret, SecretCacheStatistics::getMisses));
+            meters.add(counter(registry, "cache.negative.hits", tags, secret, SecretCacheStatistics::getNegativeCacheHits));
+            meters.add(counter(registry, "version.check.skips", tags, secret, SecretCacheStatistics::getVersionCheckSkips));
+            meters.add(counter(registry, "fetches", tags, secret, SecretCacheStatistics::getFetches));
+            meters.add(counter(registry, "refresh.failures", tags, secret, SecretCacheStatistics::getRefreshFailures));
+            meters.add(counter(registry, "invalidations", tags, secret, SecretCacheStatistics::getInvalidations));
+            meters.add(gauge(registry, "fetch.latency.p50", tags, secret, SecretCacheStatistics::getFetchLatencyP50Millis));
+            meters.add(gauge(registry, "fetch.latency.p99", tags, secret, SecretCacheStatistics::getFetchLatencyP99Millis));
+            meters.add(gauge(registry, "parse.time.p99", tags, secret, SecretCacheStatistics::getParseTimeP99Millis));
+            meters.add(gauge(registry, "snapshot.age", tags, secret, SecretCacheStatistics::getSnapshotAgeSeconds));
+        }
+
+        return () -> {
+            for (Meter meter : meters) {
+                registry.remove(meter);
+            }
+        };
+    }
+
+    private static <T> Meter counter(MeterRegistry registry, String name, Tags tags, T source, ToDoubleFunction<T> value) {
+        return FunctionCounter.builder(PREFIX + name, source, value).tags(tags).register(registry);
+    }
+
+    private static <T> Meter gauge(MeterRegistry registry, String name, Tags tags, T source, ToDoubleFunction<T> value) {
+        return Gauge.builder(PREFIX + name, source, value).tags(tags).baseUnit(name.endsWith("age") ? "seconds" : "milliseconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,171 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.DescribeParametersRequest;
+import software.amazon.awssdk.services.ssm.model.DescribeParametersResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.ParameterMetadata;
+import software.amazon.awssdk.services.ssm.model.ParameterStringFilter;
+import software.amazon.awssdk.services.ssm.model.SsmException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link SecretBackend} on AWS Systems Manager Parameter Store. A secret is a parameter path: every parameter
+ * below it, at any depth, is read with paginated {@code GetParametersByPath} calls (SecureStrings decrypted)
+ * and becomes a key named after its path relative to the secret, for example {@code db/password} for
+ * {@code /app/prod/db/password} under {@code /app/prod}.
+ * <p>
+ * The version id of a path is a hash of the names and versions of its parameters. Refreshes first compute it
+ * from {@code DescribeParameters}, which returns the parameters' metadata in pages of 50 without decrypting any
+ * value, and only read the path again when it differs. Without the {@code ssm:DescribeParameters} permission
+ * every refresh reads the path.
+ */
+class ParameterStoreBackend implements SecretBackend {
+
+    private final static Logger logger = LoggerFactory.getLogger(ParameterStoreBackend.class);
+
+    static final String NAME = "AWS Systems Manager Parameter Store";
+
+    // largest page GetParametersByPath returns
+    private static final int PAGE_SIZE = 10;
+
+    // largest page DescribeParameters returns
+    private static final int METADATA_PAGE_SIZE = 50;
+
+    private final SsmClient client;
+
+    // set once DescribeParameters is denied, after which refreshes read the paths without checking
+    private volatile boolean versionCheckDenied;
+
+    ParameterStoreBackend(SsmClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<String> getCurrentVersion(String secretName) {
+        if (versionCheckDenied) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            result.complete(describePath(secretName));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return the version id of the parameters below the path, or {@code null} when it cannot be determined
+     */
+    private String describePath(String path) {
+        Map<String, Long> versions = new TreeMap<>();
+        String nextToken = null;
+        try {
+            do {
+                DescribeParametersResponse page = client.describeParameters(DescribeParametersRequest.builder()
+                        .parameterFilters(ParameterStringFilter.builder()
+                                .key("Path")
+                                .option("Recursive")
+                                .values(path)
+                                .build())
+                        .maxResults(METADATA_PAGE_SIZE)
+                        .nextToken(nextToken)
+                        .build());
+                for (ParameterMetadata parameter : page.parameters()) {
+                    versions.put(parameter.name(), parameter.version());
+                }
+                nextToken = page.nextToken();
+            } while (nextToken != null && !nextToken.isEmpty());
+        } catch (SsmException e) {
+            if (e.statusCode() == 400 && e.awsErrorDetails() != null
+                    && "AccessDeniedException".equals(e.awsErrorDetails().errorCode())) {
+                versionCheckDenied = true;
+                logger.warn("ssm:DescribeParameters is not allowed, every refresh reads the parameters again -- {}",
+                        e.getMessage());
+            } else {
+                logger.warn("Failed to check the version of the parameters below {}, reading them -- {}", path,
+                        e.getMessage());
+            }
+            return null;
+        }
+        return versions.isEmpty() ? null : versionOf(versions);
+    }
+
+    @Override
+    public CompletableFuture<SecretPayload> getSecret(String secretName) {
+        CompletableFuture<SecretPayload> result = new CompletableFuture<>();
+        try {
+            result.complete(readPath(secretName));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private SecretPayload readPath(String path) {
+        if (logger.isDebugEnabled())
+            logger.debug("AWS SSM Lookup below path: {}", path);
+
+        String prefix = path.endsWith("/") ? path : path + "/";
+        Map<String, String> values = new HashMap<>();
+        Map<String, Long> versions = new TreeMap<>();
+        String nextToken = null;
+        try {
+            do {
+                GetParametersByPathResponse page = client.getParametersByPath(GetParametersByPathRequest.builder()
+                        .path(path)
+                        .recursive(true)
+                        .withDecryption(true)
+                        .maxResults(PAGE_SIZE)
+                        .nextToken(nextToken)
+                        .build());
+                for (Parameter parameter : page.parameters()) {
+                    String name = parameter.name();
+                    values.put(name.startsWith(prefix) ? name.substring(prefix.length()) : name, parameter.value());
+                    versions.put(name, parameter.version());
+                }
+                nextToken = page.nextToken();
+            } while (nextToken != null && !nextToken.isEmpty());
+        } catch (SsmException e) {
+            logger.error("Failed to Get Parameters from AWS SSM -- {} ", e.getMessage());
+            throw new RuntimeException("Failed to get parameters below " + path + " from AWS SSM -- " + e.getMessage(), e);
+        }
+        if (values.isEmpty()) {
+            throw new RuntimeException("No parameters were found below the requested path " + path);
+        }
+
+        return SecretPayload.ofValues(versionOf(versions), values);
+    }
+
+    /**
+     * @param versions version of each parameter, by name in sorted order
+     */
+    private static String versionOf(Map<String, Long> versions) {
+        List<String> fingerprint = new ArrayList<>(versions.size());
+        for (Map.Entry<String, Long> version : versions.entrySet()) {
+            fingerprint.add(version.getKey() + ":" + version.getValue());
+        }
+        return ClientRegistry.fingerprint(fingerprint.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,249 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Statistics of one provider instance: the duration of its startup phases, STS assume-role latency, the retries,
+ * rate limiting and circuit breaker state of its AWS calls, plus the {@link SecretCacheStatistics} of every
+ * configured secret. {@link #register(List, ToIntFunction)} publishes them as JMX MXBeans and, when Micrometer is
+ * on the classpath, as meters of its global registry; {@link #unregister()} removes them again.
+ */
+public final class ProviderStatistics implements ProviderStatisticsMXBean {
+
+    private final static Logger logger = LoggerFactory.getLogger(ProviderStatistics.class);
+
+    static final String JMX_DOMAIN = "com.mulesoft.aws.secrets.manager";
+
+    private static final String MICROMETER_CLASS = "io.micrometer.core.instrument.Metrics";
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final int instance = INSTANCES.incrementAndGet();
+
+    private volatile LatencyHistogram assumeRoleLatency;
+
+    // in order of completion
+    private final Map<String, Long> startupPhaseMillis = new LinkedHashMap<>();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder throttlingErrors = new LongAdder();
+
+    private final LongAdder rateLimitDelays = new LongAdder();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private volatile CircuitBreaker.State circuitBreakerState = CircuitBreaker.State.CLOSED;
+
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    private volatile List<SecretCacheStatistics> secrets = new ArrayList<>();
+
+    private volatile ToIntFunction<String> invalidation = secretId -> 0;
+
+    private AutoCloseable micrometerBinding;
+
+    public ProviderStatistics() {
+        this(new LatencyHistogram());
+    }
+
+    /**
+     * @param assumeRoleLatency latency of the AssumeRole calls of the connection the provider uses, which may
+     *                          be shared with other providers
+     */
+    ProviderStatistics(LatencyHistogram assumeRoleLatency) {
+        this.assumeRoleLatency = assumeRoleLatency;
+    }
+
+    int getInstance() {
+        return instance;
+    }
+
+    /**
+     * Switches to the latency histogram of a connection created after the provider.
+     */
+    void setAssumeRoleLatency(LatencyHistogram assumeRoleLatency) {
+        this.assumeRoleLatency = assumeRoleLatency;
+    }
+
+    void recordStartupPhase(String phase, Duration duration) {
+        synchronized (startupPhaseMillis) {
+            startupPhaseMillis.put(phase, duration.toMillis());
+        }
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordThrottlingError() {
+        throttlingErrors.increment();
+    }
+
+    void recordRateLimitDelay() {
+        rateLimitDelays.increment();
+    }
+
+    void recordRejectedCall() {
+        rejectedCalls.increment();
+    }
+
+    void recordCircuitBreakerState(CircuitBreaker.State state) {
+        circuitBreakerState = state;
+    }
+
+    /**
+     * Registers the MXBeans of this provider and of its secrets. Failures are logged and never prevent the
+     * provider from working.
+     *
+     * @param invalidation refreshes the secrets an id refers to, invoked by the {@code invalidate} operation
+     */
+    synchronized void register(List<SecretCacheStatistics> secretStatistics, ToIntFunction<String> invalidation) {
+        this.secrets = new ArrayList<>(secretStatistics);
+        this.invalidation = invalidation;
+        if (secrets.isEmpty()) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            registerMBean(mBeanServer, this, "type=PropertiesProvider,instance=" + instance
+                    + ",secret=" + ObjectName.quote(secrets.get(0).getSecretName()));
+            for (SecretCacheStatistics secret : secrets) {
+                registerMBean(mBeanServer, secret, "type=Secret,instance=" + instance
+                        + ",secret=" + ObjectName.quote(secret.getSecretName()));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to register the AWS Secrets Manager provider MBeans -- {}", e.toString());
+        }
+
+        if (isMicrometerAvailable()) {
+            try {
+                micrometerBinding = MicrometerMetrics.bind(this, secrets);
+            } catch (RuntimeException | LinkageError e) {
+                logger.warn("Failed to bind the AWS Secrets Manager provider metrics to Micrometer -- {}", e.toString());
+            }
+        }
+    }
+
+    synchronized void unregister() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            } catch (Exception e) {
+                logger.debug("Failed to unregister MBean {} -- {}", name, e.toString());
+            }
+        }
+        registeredNames.clear();
+        if (micrometerBinding != null) {
+            try {
+                micrometerBinding.close();
+            } catch (Exception e) {
+                logger.debug("Failed to remove the Micrometer meters -- {}", e.toString());
+            }
+            micrometerBinding = null;
+        }
+    }
+
+    private void registerMBean(MBeanServer mBeanServer, Object mBean, String keyProperties) throws Exception {
+        ObjectName name = new ObjectName(JMX_DOMAIN + ":" + keyProperties);
+        mBeanServer.registerMBean(mBean, name);
+        registeredNames.add(name);
+    }
+
+    private static boolean isMicrometerAvailable() {
+        try {
+            Class.forName(MICROMETER_CLASS, false, ProviderStatistics.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String[] getSecretNames() {
+        List<SecretCacheStatistics> current = secrets;
+        String[] names = new String[current.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = current.get(i).getSecretName();
+        }
+        return names;
+    }
+
+    @Override
+    public Map<String, Long> getStartupPhaseMillis() {
+        synchronized (startupPhaseMillis) {
+            return new LinkedHashMap<>(startupPhaseMillis);
+        }
+    }
+
+    @Override
+    public long getAssumeRoleCalls() {
+        return assumeRoleLatency.getCount();
+    }
+
+    @Override
+    public double getAssumeRoleLatencyMeanMillis() {
+        return assumeRoleLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getAssumeRoleLatencyP99Millis() {
+        return assumeRoleLatency.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getAssumeRoleLatencyMaxMillis() {
+        return assumeRoleLatency.getMaxMillis();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getThrottlingErrors() {
+        return throttlingErrors.sum();
+    }
+
+    @Override
+    public long getRateLimitDelays() {
+        return rateLimitDelays.sum();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    @Override
+    public String getCircuitBreakerState() {
+        return circuitBreakerState.name();
+    }
+
+    @Override
+    public int invalidate(String secretId) {
+        return secretId == null ? 0 : invalidation.applyAsInt(secretId.trim());
+    }
+
+    /**
+     * @return {@code 1} while the circuit breaker suspends calls, {@code 0} otherwise
+     */
+    double getCircuitBreakerOpen() {
+        return circuitBreakerState == CircuitBreaker.State.CLOSED ? 0 : 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.Map;
+
+/**
+ * JMX view of a provider instance, registered as
+ * {@code com.mulesoft.aws.secrets.manager:type=PropertiesProvider,instance=<n>,secret=<default secret name>}.
+ * Latencies are in milliseconds. The call counters cover the calls to AWS Secrets Manager: retries after a
+ * throttling or transient error, calls delayed by the rate limit and calls rejected while the circuit breaker
+ * is open.
+ */
+public interface ProviderStatisticsMXBean {
+
+    String[] getSecretNames();
+
+    /**
+     * @return duration of each startup phase that has completed: {@code clients} (SDK and HTTP clients),
+     * {@code credentials} (resolving the credentials, including the first AssumeRole), {@code secrets} (the
+     * initial load of every secret) and {@code total}
+     */
+    Map<String, Long> getStartupPhaseMillis();
+
+    long getAssumeRoleCalls();
+
+    double getAssumeRoleLatencyMeanMillis();
+
+    double getAssumeRoleLatencyP99Millis();
+
+    double getAssumeRoleLatencyMaxMillis();
+
+    long getRetries();
+
+    long getThrottlingErrors();
+
+    long getRateLimitDelays();
+
+    long getRejectedCalls();
+
+    /**
+     * @return {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}
+     */
+    String getCircuitBreakerState();
+
+    /**
+     * Refreshes the configured secrets a secret name, ARN or parameter name refers to, for example right after
+     * a manual rotation.
+     *
+     * @return the number of secrets being refreshed
+     */
+    int invalidate(String secretId);
+}
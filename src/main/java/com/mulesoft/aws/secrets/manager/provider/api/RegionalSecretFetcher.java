@@ -0,0 +1,291 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@link SecretFetcher} reading a replicated secret from the fastest of several regions.
+ * <p>
+ * Every call is sent to the region with the lowest exponentially weighted moving average of its response times;
+ * regions not measured yet are tried first, so each of them gets measured early on, and every
+ * {@value #PROBE_INTERVAL}th call goes to another region to keep the averages of the slower regions current.
+ * When the chosen region has not answered within the configured percentile of its own response times, the
+ * same call is also sent to the next region (a hedged request) and the first answer wins. A region failing
+ * with a throttling, server or network error is charged a penalty and the call fails over to the next region.
+ * <p>
+ * Calls never block the caller: blocking region fetchers run on a thread pool of their own.
+ */
+class RegionalSecretFetcher implements SecretFetcher, AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(RegionalSecretFetcher.class);
+
+    private static final double EWMA_WEIGHT = 0.2;
+
+    // response time charged to a region whose call failed, when it is higher than twice its average
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // calls a region must have answered before its percentile is trusted as a hedging delay
+    private static final int MIN_HEDGE_SAMPLES = 10;
+
+    static final int PROBE_INTERVAL = 100;
+
+    /**
+     * A region and the fetcher of its Secrets Manager endpoint.
+     */
+    static final class Region {
+
+        private final String name;
+
+        private final SecretFetcher fetcher;
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        // negative until the first answer
+        private volatile double averageNanos = -1;
+
+        Region(String name, SecretFetcher fetcher) {
+            this.name = name;
+            this.fetcher = fetcher;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        double getAverageMillis() {
+            return averageNanos < 0 ? Double.NaN : averageNanos / 1_000_000d;
+        }
+
+        private void recordAnswer(long nanos) {
+            latency.record(nanos);
+            updateAverage(nanos);
+        }
+
+        private void recordFailure() {
+            updateAverage(Math.max(FAILURE_PENALTY_NANOS, (long) (2 * averageNanos)));
+        }
+
+        private synchronized void updateAverage(long nanos) {
+            averageNanos = averageNanos < 0 ? nanos : averageNanos + EWMA_WEIGHT * (nanos - averageNanos);
+        }
+
+        private double rank() {
+            return averageNanos < 0 ? 0 : averageNanos;
+        }
+    }
+
+    private final List<Region> regions;
+
+    private final double hedgeQuantile;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final ExecutorService blockingExecutor;
+
+    private final ScheduledExecutorService hedgeScheduler;
+
+    /**
+     * @param regions        the primary region first, then the replica regions
+     * @param hedgePercentile percentile of a region's response times after which a hedged request is sent to the
+     *                        next region, {@code 0} to never hedge
+     */
+    RegionalSecretFetcher(List<Region> regions, int hedgePercentile) {
+        if (regions.size() < 2) {
+            throw new IllegalArgumentException("At least two regions are required");
+        }
+        if (hedgePercentile < 0 || hedgePercentile >= 100) {
+            throw new IllegalArgumentException("Hedging percentile must be between 0 and 99");
+        }
+        this.regions = new ArrayList<>(regions);
+        this.hedgeQuantile = hedgePercentile / 100d;
+        boolean blocking = false;
+        for (Region region : regions) {
+            blocking |= !region.fetcher.isNonBlocking();
+        }
+        this.blockingExecutor = blocking ? Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "aws-secrets-region");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (hedgePercentile > 0) {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "aws-secrets-hedge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            this.hedgeScheduler = scheduler;
+        } else {
+            this.hedgeScheduler = null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<GetSecretValueResponse> getSecretValue(GetSecretValueRequest request) {
+        return call(fetcher -> fetcher.getSecretValue(request));
+    }
+
+    @Override
+    public CompletableFuture<DescribeSecretResponse> describeSecret(DescribeSecretRequest request) {
+        return call(fetcher -> fetcher.describeSecret(request));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    List<Region> getRegions() {
+        return Collections.unmodifiableList(regions);
+    }
+
+    /**
+     * @return the regions in the order the next call tries them
+     */
+    List<Region> rankRegions() {
+        List<Region> ranked = new ArrayList<>(regions);
+        ranked.sort(Comparator.comparingDouble(Region::rank));
+        long call = calls.incrementAndGet();
+        if (call % PROBE_INTERVAL == 0) {
+            // move a slower region to the front so that its average does not go stale
+            int probe = 1 + (int) ((call / PROBE_INTERVAL) % (ranked.size() - 1));
+            ranked.add(0, ranked.remove(probe));
+        }
+        return ranked;
+    }
+
+    private <T> CompletableFuture<T> call(Function<SecretFetcher, CompletableFuture<T>> request) {
+        RegionalCall<T> call = new RegionalCall<>(rankRegions(), request);
+        Region first = call.ranked.get(0);
+        send(call);
+        if (hedgeScheduler != null && first.latency.getCount() >= MIN_HEDGE_SAMPLES) {
+            long hedgeDelay = (long) (first.latency.getPercentileMillis(hedgeQuantile) * 1_000_000d);
+            try {
+                hedgeScheduler.schedule(() -> {
+                    if (!call.result.isDone() && send(call)) {
+                        if (logger.isDebugEnabled())
+                            logger.debug("Region {} did not answer within {} ms, hedging", first.name,
+                                    TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                    }
+                }, hedgeDelay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Hedging scheduler is shut down, not hedging");
+            }
+        }
+        return call.result;
+    }
+
+    /**
+     * Sends the call to the next region not tried yet.
+     * <p>
+     * The call is counted as pending before a region is claimed, so that a hedge claiming the last region cannot
+     * be overtaken by the failure of the only call in flight, which would otherwise find nothing pending and fail
+     * the call while the hedge is being sent.
+     *
+     * @return whether there was such a region
+     */
+    private <T> boolean send(RegionalCall<T> call) {
+        call.pending.incrementAndGet();
+        int index = call.nextRegion.getAndIncrement();
+        if (index >= call.ranked.size()) {
+            release(call);
+            return false;
+        }
+        Region region = call.ranked.get(index);
+        long start = System.nanoTime();
+        invoke(region, call.request).whenComplete((value, failure) -> {
+            Throwable cause = failure == null ? null : SingleFlight.unwrap(failure);
+            if (cause == null || !ResilientSecretFetcher.isTransient(cause)) {
+                region.recordAnswer(System.nanoTime() - start);
+                if (cause == null) {
+                    call.result.complete(value);
+                } else {
+                    call.result.completeExceptionally(cause);
+                }
+                release(call);
+                return;
+            }
+            region.recordFailure();
+            if (logger.isDebugEnabled())
+                logger.debug("AWS SM call in region {} failed -- {}", region.name, cause.getMessage());
+            call.lastFailure = cause;
+            if (!call.result.isDone()) {
+                send(call);
+            }
+            release(call);
+        });
+        return true;
+    }
+
+    /**
+     * Ends a send; the last one to end fails the call with the last failure, unless a region answered it.
+     */
+    private static <T> void release(RegionalCall<T> call) {
+        if (call.pending.decrementAndGet() == 0 && call.lastFailure != null) {
+            call.result.completeExceptionally(call.lastFailure);
+        }
+    }
+
+    private <T> CompletableFuture<T> invoke(Region region, Function<SecretFetcher, CompletableFuture<T>> request) {
+        try {
+            if (region.fetcher.isNonBlocking()) {
+                return request.apply(region.fetcher);
+            }
+            return CompletableFuture.supplyAsync(() -> request.apply(region.fetcher), blockingExecutor)
+                    .thenCompose(response -> response);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+        if (blockingExecutor != null) {
+            blockingExecutor.shutdown();
+        }
+    }
+
+    private static final class RegionalCall<T> {
+
+        private final List<Region> ranked;
+
+        private final Function<SecretFetcher, CompletableFuture<T>> request;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final AtomicInteger nextRegion = new AtomicInteger();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile Throwable lastFailure;
+
+        private RegionalCall(List<Region> ranked, Function<SecretFetcher, CompletableFuture<T>> request) {
+            this.ranked = ranked;
+            this.request = request;
+        }
+    }
+}
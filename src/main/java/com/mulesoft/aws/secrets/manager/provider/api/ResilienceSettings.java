@@ -0,0 +1,95 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.time.Duration;
+
+/**
+ * Retry, rate limit and circuit breaker parameters of the calls a provider makes to AWS Secrets Manager.
+ */
+final class ResilienceSettings {
+
+    static final int DEFAULT_MAX_RETRIES = 3;
+
+    static final Duration DEFAULT_RETRY_BASE_DELAY = Duration.ofMillis(100);
+
+    static final Duration DEFAULT_RETRY_MAX_DELAY = Duration.ofSeconds(5);
+
+    static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 50;
+
+    static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+
+    static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final int maxRetries;
+
+    private final Duration retryBaseDelay;
+
+    private final Duration retryMaxDelay;
+
+    private final int maxRequestsPerSecond;
+
+    private final int circuitBreakerThreshold;
+
+    private final Duration circuitBreakerOpenDuration;
+
+    /**
+     * @param maxRetries                 retries of a throttled or failed call, {@code 0} disables retries
+     * @param retryBaseDelay             upper bound of the first retry delay, doubled on every further retry
+     * @param retryMaxDelay              cap of the retry delay
+     * @param maxRequestsPerSecond       calls per second the provider may make, {@code 0} for no limit
+     * @param circuitBreakerThreshold    consecutive failed calls after which calls are suspended, {@code 0}
+     *                                   disables the circuit breaker
+     * @param circuitBreakerOpenDuration time calls stay suspended before a single trial call is let through
+     */
+    ResilienceSettings(int maxRetries, Duration retryBaseDelay, Duration retryMaxDelay, int maxRequestsPerSecond,
+                       int circuitBreakerThreshold, Duration circuitBreakerOpenDuration) {
+        if (maxRetries < 0 || maxRequestsPerSecond < 0 || circuitBreakerThreshold < 0) {
+            throw new IllegalArgumentException("Retry, rate limit and circuit breaker settings must not be negative");
+        }
+        if (retryBaseDelay == null || retryBaseDelay.isNegative() || retryBaseDelay.isZero()
+                || retryMaxDelay == null || retryMaxDelay.compareTo(retryBaseDelay) < 0) {
+            throw new IllegalArgumentException("Retry base delay must be positive and not exceed the maximum retry delay");
+        }
+        if (circuitBreakerOpenDuration == null || circuitBreakerOpenDuration.isNegative() || circuitBreakerOpenDuration.isZero()) {
+            throw new IllegalArgumentException("Circuit breaker open duration must be positive");
+        }
+        this.maxRetries = maxRetries;
+        this.retryBaseDelay = retryBaseDelay;
+        this.retryMaxDelay = retryMaxDelay;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    static ResilienceSettings defaults() {
+        return new ResilienceSettings(DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BASE_DELAY, DEFAULT_RETRY_MAX_DELAY,
+                DEFAULT_MAX_REQUESTS_PER_SECOND, DEFAULT_CIRCUIT_BREAKER_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION);
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    Duration getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    Duration getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    boolean isRateLimited() {
+        return maxRequestsPerSecond > 0;
+    }
+
+    int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    Duration getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+}
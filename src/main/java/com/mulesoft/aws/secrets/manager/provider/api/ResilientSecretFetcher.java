@@ -0,0 +1,235 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link SecretFetcher} guarding the calls of another fetcher, so that a fleet restarting at once or a degraded
+ * AWS region does not turn into a storm of calls.
+ * <ul>
+ * <li>Calls are paced by a {@link TokenBucket} holding one second worth of calls.</li>
+ * <li>Throttled calls and calls failing with a 5xx status or a network error are retried with exponential
+ * backoff and full jitter: retry {@code n} waits a random time between zero and
+ * {@code min(maxDelay, baseDelay * 2^n)}.</li>
+ * <li>A {@link CircuitBreaker} counts the calls still failing with a 5xx status or a network error after their
+ * retries; once open, calls fail at once with a {@link SecretsManagerUnavailableException} and the cached secrets
+ * keep being served. The trial call made once the breaker half opens is not retried.</li>
+ * </ul>
+ * Answers such as a missing secret or a denied access are passed through untouched, and count as AWS being up.
+ * Throttled calls never open the breaker: AWS is up and only asks for fewer calls, which the rate limiter and the
+ * backoff already provide, while an open breaker would fail the cold loads of secrets never loaded yet.
+ * <p>
+ * Waits happen on the calling thread when the delegate is blocking, and on a scheduler thread when it is not,
+ * so that the non-blocking engine never holds a thread while backing off.
+ */
+class ResilientSecretFetcher implements SecretFetcher, AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(ResilientSecretFetcher.class);
+
+    private final SecretFetcher delegate;
+
+    private final ResilienceSettings settings;
+
+    private final ProviderStatistics statistics;
+
+    private final TokenBucket rateLimiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private ScheduledExecutorService scheduler;
+
+    private boolean closed;
+
+    ResilientSecretFetcher(SecretFetcher delegate, ResilienceSettings settings, ProviderStatistics statistics) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.statistics = statistics;
+        this.rateLimiter = settings.isRateLimited()
+                ? new TokenBucket(settings.getMaxRequestsPerSecond(), settings.getMaxRequestsPerSecond())
+                : null;
+        this.circuitBreaker = new CircuitBreaker(settings.getCircuitBreakerThreshold(),
+                settings.getCircuitBreakerOpenDuration(), this::onCircuitBreakerTransition);
+    }
+
+    @Override
+    public CompletableFuture<GetSecretValueResponse> getSecretValue(GetSecretValueRequest request) {
+        return call(() -> delegate.getSecretValue(request));
+    }
+
+    @Override
+    public CompletableFuture<DescribeSecretResponse> describeSecret(DescribeSecretRequest request) {
+        return call(() -> delegate.describeSecret(request));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return delegate.isNonBlocking();
+    }
+
+    CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> remoteCall) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(remoteCall, 0, result);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> remoteCall, int attempt, CompletableFuture<T> result) {
+        CircuitBreaker.Admission admission = circuitBreaker.tryAcquire();
+        if (admission == CircuitBreaker.Admission.REJECTED) {
+            statistics.recordRejectedCall();
+            result.completeExceptionally(new SecretsManagerUnavailableException(
+                    "AWS SM calls are suspended after repeated failures, retrying within "
+                            + settings.getCircuitBreakerOpenDuration(), null));
+            return;
+        }
+        long wait = rateLimiter == null ? 0 : rateLimiter.reserve();
+        if (wait > 0) {
+            statistics.recordRateLimitDelay();
+            after(wait, () -> invoke(remoteCall, attempt, admission, result), result);
+        } else {
+            invoke(remoteCall, attempt, admission, result);
+        }
+    }
+
+    private <T> void invoke(Supplier<CompletableFuture<T>> remoteCall, int attempt, CircuitBreaker.Admission admission,
+                            CompletableFuture<T> result) {
+        CompletableFuture<T> response;
+        try {
+            response = remoteCall.get();
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        response.whenComplete((value, failure) -> {
+            if (failure == null) {
+                circuitBreaker.onSuccess();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = SingleFlight.unwrap(failure);
+            if (!isTransient(cause)) {
+                circuitBreaker.onSuccess();
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (isThrottling(cause)) {
+                statistics.recordThrottlingError();
+            }
+            // a failed trial reopens the breaker right away: a retry would be rejected while it is half open
+            if (attempt >= settings.getMaxRetries() || admission == CircuitBreaker.Admission.TRIAL) {
+                if (isThrottling(cause)) {
+                    circuitBreaker.onThrottled();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+                result.completeExceptionally(new SecretsManagerUnavailableException(
+                        "AWS SM call failed after " + (attempt + 1) + " attempts -- " + cause.getMessage(), cause));
+                return;
+            }
+            long delay = backoff(attempt);
+            if (logger.isDebugEnabled())
+                logger.debug("AWS SM call failed, retrying in {} ms -- {}", TimeUnit.NANOSECONDS.toMillis(delay), cause.getMessage());
+            statistics.recordRetry();
+            after(delay, () -> attempt(remoteCall, attempt + 1, result), result);
+        });
+    }
+
+    /**
+     * Full jitter: a uniformly random delay up to the exponential backoff of the attempt.
+     */
+    private long backoff(int attempt) {
+        long ceiling = settings.getRetryBaseDelay().toNanos() << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > settings.getRetryMaxDelay().toNanos()) {
+            ceiling = settings.getRetryMaxDelay().toNanos();
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void after(long delayNanos, Runnable task, CompletableFuture<?> result) {
+        if (delegate.isNonBlocking()) {
+            try {
+                scheduler().schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new SecretsManagerUnavailableException("The provider is disposed", e));
+            }
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(new RuntimeException("Interrupted while waiting to call AWS SM", e));
+            return;
+        }
+        task.run();
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (closed) {
+            throw new RejectedExecutionException("closed");
+        }
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "aws-secrets-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    private void onCircuitBreakerTransition(CircuitBreaker.State state) {
+        statistics.recordCircuitBreakerState(state);
+        if (state == CircuitBreaker.State.OPEN) {
+            logger.warn("AWS SM is failing, suspending calls for {} and serving cached secrets",
+                    settings.getCircuitBreakerOpenDuration());
+        } else if (state == CircuitBreaker.State.CLOSED) {
+            logger.info("AWS SM calls are succeeding again, resuming calls");
+        }
+    }
+
+    static boolean isThrottling(Throwable failure) {
+        return failure instanceof SdkServiceException && ((SdkServiceException) failure).isThrottlingException();
+    }
+
+    /**
+     * Whether the failure says AWS or the network is degraded, rather than answering the request.
+     */
+    static boolean isTransient(Throwable failure) {
+        if (failure instanceof SdkServiceException) {
+            SdkServiceException e = (SdkServiceException) failure;
+            return e.isThrottlingException() || e.statusCode() >= 500;
+        }
+        return failure instanceof SdkClientException;
+    }
+
+    /**
+     * Stops the retry scheduler once the waits already scheduled have run, so that no caller is left waiting.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+}
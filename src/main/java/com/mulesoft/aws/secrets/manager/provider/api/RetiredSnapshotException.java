@@ -0,0 +1,14 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+/**
+ * Raised when a value is read from a {@link SecretSnapshot} whose values were zeroed because a newer version
+ * of the secret replaced it. The current snapshot holds the value.
+ */
+class RetiredSnapshotException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    RetiredSnapshotException() {
+        super("This version of the secret was retired, read the current snapshot instead");
+    }
+}
@@ -0,0 +1,54 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.time.Duration;
+
+/**
+ * Session parameters of the role assumed by the Role Connection.
+ */
+final class RoleSessionSettings {
+
+    static final String DEFAULT_SESSION_NAME = "WithRoleARN";
+
+    static final Duration DEFAULT_SESSION_DURATION = Duration.ofHours(1);
+
+    private static final Duration MIN_SESSION_DURATION = Duration.ofMinutes(15);
+
+    private static final Duration MAX_SESSION_DURATION = Duration.ofHours(12);
+
+    private final String sessionName;
+
+    private final Duration sessionDuration;
+
+    private final String externalId;
+
+    /**
+     * @param sessionName     name of the role session, 2 to 64 characters
+     * @param sessionDuration lifetime of each session, between 15 minutes and 12 hours
+     * @param externalId      external ID expected by the role's trust policy, may be {@code null}
+     */
+    RoleSessionSettings(String sessionName, Duration sessionDuration, String externalId) {
+        if (sessionName == null || sessionName.length() < 2 || sessionName.length() > 64) {
+            throw new IllegalArgumentException("Role session name must be between 2 and 64 characters long");
+        }
+        if (sessionDuration == null || sessionDuration.compareTo(MIN_SESSION_DURATION) < 0
+                || sessionDuration.compareTo(MAX_SESSION_DURATION) > 0) {
+            throw new IllegalArgumentException("Role session duration must be between "
+                    + MIN_SESSION_DURATION.getSeconds() + " and " + MAX_SESSION_DURATION.getSeconds() + " seconds");
+        }
+        this.sessionName = sessionName;
+        this.sessionDuration = sessionDuration;
+        this.externalId = externalId;
+    }
+
+    String getSessionName() {
+        return sessionName;
+    }
+
+    Duration getSessionDuration() {
+        return sessionDuration;
+    }
+
+    String getExternalId() {
+        return externalId;
+    }
+}
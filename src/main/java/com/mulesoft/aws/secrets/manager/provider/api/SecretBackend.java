@@ -0,0 +1,39 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Store the provider loads secrets from. A secret is a named set of key/value pairs that is loaded, cached,
+ * refreshed and persisted as a whole; the provider's cache, refresh and resolution engine only talks to the
+ * store through this interface.
+ * <p>
+ * Implementations must be thread-safe. Failures are reported through the returned futures; a
+ * {@link RuntimeException} message is what ends up in the logs.
+ */
+public interface SecretBackend {
+
+    /**
+     * @return name of the store, reported as the source of the resolved properties
+     */
+    String getName();
+
+    /**
+     * Looks up the version of a secret without downloading it, so that an unchanged secret is not downloaded
+     * and parsed again.
+     *
+     * @return a future completing with the current version id, or with {@code null} when the store cannot tell
+     * cheaply, in which case the secret is downloaded
+     */
+    CompletableFuture<String> getCurrentVersion(String secretName);
+
+    /**
+     * Downloads the current version of a secret.
+     */
+    CompletableFuture<SecretPayload> getSecret(String secretName);
+
+    /**
+     * @return whether calls return before the store answers. When they do not, callers that must not block run
+     * them on a thread of their own.
+     */
+    boolean isNonBlocking();
+}
@@ -0,0 +1,96 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.time.Duration;
+
+/**
+ * Caching behaviour of the secrets held by an {@link AWSSecretsManagerConfigurationPropertiesProvider}.
+ * <p>
+ * A zero TTL keeps the original behaviour: the secret is loaded once and {@code real-time::} keys are
+ * fetched from AWS Secrets Manager on every lookup. A positive TTL serves every key, {@code real-time::}
+ * included, from the in-memory snapshot and refreshes that snapshot in the background once it is older than the TTL.
+ * {@link #untilInvalidated(Duration, Duration)} serves every key from the snapshot as well, but only refreshes it
+ * when the secret is invalidated.
+ */
+public final class SecretCacheSettings {
+
+    public static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofSeconds(30);
+
+    // TTL that is never reached, yet small enough for System.nanoTime() arithmetic
+    private static final Duration NO_EXPIRY = Duration.ofNanos(Long.MAX_VALUE / 4);
+
+    private static final SecretCacheSettings DISABLED = new SecretCacheSettings(Duration.ZERO, Duration.ZERO);
+
+    private final Duration ttl;
+
+    private final Duration maxStaleness;
+
+    private final Duration negativeCacheTtl;
+
+    /**
+     * @param ttl          age after which the snapshot is refreshed in the background, zero to disable caching
+     * @param maxStaleness age after which a stale snapshot is no longer served and a lookup blocks on a
+     *                     remote fetch, zero for no bound
+     */
+    public SecretCacheSettings(Duration ttl, Duration maxStaleness) {
+        this(ttl, maxStaleness, DEFAULT_NEGATIVE_CACHE_TTL);
+    }
+
+    /**
+     * @param ttl              age after which the snapshot is refreshed in the background, zero to disable caching
+     * @param maxStaleness     age after which a stale snapshot is no longer served and a lookup blocks on a
+     *                         remote fetch, zero for no bound
+     * @param negativeCacheTtl how long a key found absent from the loaded version is reported absent without
+     *                         contacting AWS, zero to check with AWS on every miss
+     */
+    public SecretCacheSettings(Duration ttl, Duration maxStaleness, Duration negativeCacheTtl) {
+        if (ttl == null || ttl.isNegative() || maxStaleness == null || maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Cache TTL and maximum staleness must not be negative");
+        }
+        if (negativeCacheTtl == null || negativeCacheTtl.isNegative()) {
+            throw new IllegalArgumentException("Negative cache TTL must not be negative");
+        }
+        if (!maxStaleness.isZero() && ttl != NO_EXPIRY && maxStaleness.compareTo(ttl) < 0) {
+            throw new IllegalArgumentException("Cache maximum staleness must not be shorter than the cache TTL");
+        }
+        this.ttl = ttl;
+        this.maxStaleness = maxStaleness;
+        this.negativeCacheTtl = negativeCacheTtl;
+    }
+
+    public static SecretCacheSettings disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Settings for secrets kept current by invalidation events rather than by polling: the snapshot is never
+     * refreshed because of its age, only when the provider is told that the secret changed.
+     *
+     * @param maxStaleness     age after which the snapshot is no longer served and a lookup blocks on a remote
+     *                         fetch, zero for no bound
+     * @param negativeCacheTtl how long a key found absent from the loaded version is reported absent without
+     *                         contacting AWS, zero to check with AWS on every miss
+     */
+    public static SecretCacheSettings untilInvalidated(Duration maxStaleness, Duration negativeCacheTtl) {
+        return new SecretCacheSettings(NO_EXPIRY, maxStaleness, negativeCacheTtl);
+    }
+
+    public boolean isCachingEnabled() {
+        return !ttl.isZero();
+    }
+
+    public boolean hasMaxStaleness() {
+        return !maxStaleness.isZero();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public Duration getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+}
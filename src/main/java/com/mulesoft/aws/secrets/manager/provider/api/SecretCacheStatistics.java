@@ -0,0 +1,189 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counters and latencies of a single cached secret.
+ * <ul>
+ *   <li>hits: lookups answered from memory without contacting AWS</li>
+ *   <li>misses: lookups that required a call to AWS</li>
+ *   <li>version check skips: refreshes where {@code DescribeSecret} showed the AWSCURRENT version was
+ *   unchanged, so the payload was neither downloaded nor parsed</li>
+ *   <li>fetches: full {@code GetSecretValue} downloads</li>
+ *   <li>negative cache hits: lookups of keys absent from the loaded version that were answered without
+ *   contacting AWS, i.e. remote calls avoided</li>
+ *   <li>refresh failures: loads of the secret that ended in an error</li>
+ *   <li>invalidations: change notifications that triggered a refresh of the secret</li>
+ * </ul>
+ */
+public final class SecretCacheStatistics implements SecretStatisticsMXBean {
+
+    private final String secretName;
+
+    private final Supplier<SecretSnapshot> snapshot;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder versionCheckSkips = new LongAdder();
+
+    private final LongAdder fetches = new LongAdder();
+
+    private final LongAdder negativeCacheHits = new LongAdder();
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+
+    private final LatencyHistogram versionCheckLatency = new LatencyHistogram();
+
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+
+    SecretCacheStatistics(String secretName, Supplier<SecretSnapshot> snapshot) {
+        this.secretName = secretName;
+        this.snapshot = snapshot;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordVersionCheckSkip() {
+        versionCheckSkips.increment();
+    }
+
+    void recordFetch(long startNanos) {
+        fetches.increment();
+        fetchLatency.recordSince(startNanos);
+    }
+
+    void recordNegativeCacheHit() {
+        negativeCacheHits.increment();
+    }
+
+    void recordRefreshFailure() {
+        refreshFailures.increment();
+    }
+
+    void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    void recordVersionCheck(long startNanos) {
+        versionCheckLatency.recordSince(startNanos);
+    }
+
+    LatencyHistogram getParseTime() {
+        return parseTime;
+    }
+
+    @Override
+    public String getSecretName() {
+        return secretName;
+    }
+
+    @Override
+    public long getGeneration() {
+        return snapshot.get().getGeneration();
+    }
+
+    @Override
+    public long getSnapshotAgeSeconds() {
+        SecretSnapshot current = snapshot.get();
+        if (!current.isLoaded()) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - current.getLoadedAt());
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getVersionCheckSkips() {
+        return versionCheckSkips.sum();
+    }
+
+    @Override
+    public long getFetches() {
+        return fetches.sum();
+    }
+
+    @Override
+    public long getNegativeCacheHits() {
+        return negativeCacheHits.sum();
+    }
+
+    @Override
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public double getFetchLatencyMeanMillis() {
+        return fetchLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getFetchLatencyP50Millis() {
+        return fetchLatency.getPercentileMillis(0.5);
+    }
+
+    @Override
+    public double getFetchLatencyP99Millis() {
+        return fetchLatency.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getFetchLatencyMaxMillis() {
+        return fetchLatency.getMaxMillis();
+    }
+
+    @Override
+    public double getVersionCheckLatencyMeanMillis() {
+        return versionCheckLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getVersionCheckLatencyP99Millis() {
+        return versionCheckLatency.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getParseTimeMeanMillis() {
+        return parseTime.getMeanMillis();
+    }
+
+    @Override
+    public double getParseTimeP99Millis() {
+        return parseTime.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", versionCheckSkips=" + getVersionCheckSkips()
+                + ", fetches=" + getFetches() + ", negativeCacheHits=" + getNegativeCacheHits()
+                + ", refreshFailures=" + getRefreshFailures() + ", invalidations=" + getInvalidations();
+    }
+}
@@ -0,0 +1,39 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Secrets Manager calls made by a {@link CachedSecret}, returning futures whatever the underlying client.
+ */
+interface SecretFetcher {
+
+    /**
+     * Client flavour behind the fetcher.
+     */
+    enum Engine {
+        /**
+         * Blocking {@code SecretsManagerClient}: every call holds a thread for its whole round trip.
+         */
+        SYNC,
+        /**
+         * {@code SecretsManagerAsyncClient} on a non-blocking HTTP client: calls return immediately and complete
+         * on the SDK's threads, so many loads can be in flight on a few threads.
+         */
+        ASYNC
+    }
+
+    CompletableFuture<GetSecretValueResponse> getSecretValue(GetSecretValueRequest request);
+
+    CompletableFuture<DescribeSecretResponse> describeSecret(DescribeSecretRequest request);
+
+    /**
+     * @return whether calls return before the response arrives. When they do not, callers that must not
+     * block run them on a thread of their own.
+     */
+    boolean isNonBlocking();
+}
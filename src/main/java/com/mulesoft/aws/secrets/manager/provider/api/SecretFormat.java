@@ -0,0 +1,195 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Properties;
+
+/**
+ * Layout of the payload of a secret, which decides the keys it exposes. Every format decodes the payload as
+ * received from the store, the {@code SecretString} or the bytes of the {@code SecretBinary}, without copying it
+ * first.
+ */
+public enum SecretFormat {
+
+    /**
+     * A JSON object. Nested objects are flattened into dotted keys and array elements are addressed by index.
+     * The default.
+     */
+    JSON {
+        @Override
+        CompactSecretValues read(SecretPayload payload) throws IOException {
+            return SecretJsonReader.readCompact(SecretJsonReader.jsonParser(payload), false);
+        }
+
+        @Override
+        boolean canExtract() {
+            return true;
+        }
+
+        @Override
+        String extract(SecretPayload payload, String key) throws IOException {
+            return SecretJsonReader.readValue(SecretJsonReader.jsonParser(payload), key);
+        }
+
+        @Override
+        void validate(SecretPayload payload) throws IOException {
+            SecretJsonReader.validate(SecretJsonReader.jsonParser(payload));
+        }
+    },
+
+    /**
+     * A JSON object whose string values may hold JSON objects themselves, as the key/value editor of the
+     * Secrets Manager console stores them. Such a value stays available as is and its keys are flattened below
+     * it as well: {@code {"db": "{\"password\": \"x\"}"}} exposes {@code db} and {@code db.password}.
+     */
+    NESTED_JSON {
+        @Override
+        CompactSecretValues read(SecretPayload payload) throws IOException {
+            return SecretJsonReader.readCompact(SecretJsonReader.jsonParser(payload), true);
+        }
+    },
+
+    /**
+     * A Java properties file, read as UTF-8.
+     */
+    PROPERTIES {
+        @Override
+        CompactSecretValues read(SecretPayload payload) throws IOException {
+            Properties properties = new Properties();
+            try (Reader reader = payload.openReader()) {
+                properties.load(reader);
+            }
+            CompactSecretValues.Builder values = new CompactSecretValues.Builder(properties.size());
+            for (String name : properties.stringPropertyNames()) {
+                values.put(name, properties.getProperty(name).getBytes(StandardCharsets.UTF_8));
+            }
+            properties.clear();
+            return values.build();
+        }
+    },
+
+    /**
+     * A YAML mapping, flattened like {@link #JSON}.
+     */
+    YAML {
+        @Override
+        CompactSecretValues read(SecretPayload payload) throws IOException {
+            return SecretJsonReader.readCompact(SecretJsonReader.yamlParser(payload), false);
+        }
+
+        @Override
+        boolean canExtract() {
+            return true;
+        }
+
+        @Override
+        String extract(SecretPayload payload, String key) throws IOException {
+            return SecretJsonReader.readValue(SecretJsonReader.yamlParser(payload), key);
+        }
+
+        @Override
+        void validate(SecretPayload payload) throws IOException {
+            SecretJsonReader.validate(SecretJsonReader.yamlParser(payload));
+        }
+    },
+
+    /**
+     * The whole payload as the single key {@value #RAW_VALUE_KEY}, for instance a PEM bundle. A binary payload
+     * that is not UTF-8 text, such as a keystore, is exposed base64 encoded.
+     */
+    RAW {
+        @Override
+        CompactSecretValues read(SecretPayload payload) {
+            byte[] value;
+            if (payload.getText() != null) {
+                value = payload.getText().getBytes(StandardCharsets.UTF_8);
+            } else if (isUtf8(payload.getBytes())) {
+                value = new byte[payload.getBytes().remaining()];
+                payload.getBytes().duplicate().get(value);
+            } else {
+                value = Base64.getEncoder().encode(payload.getBytes().duplicate()).array();
+            }
+            return new CompactSecretValues.Builder(1).put(RAW_VALUE_KEY, value).build();
+        }
+    };
+
+    /**
+     * Key of the value of a {@link #RAW} secret.
+     */
+    public static final String RAW_VALUE_KEY = "value";
+
+    /**
+     * @throws IllegalArgumentException when the name is not one of the formats
+     */
+    static SecretFormat parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown secret format " + name.trim() + ", expected one of "
+                    + Arrays.toString(values()));
+        }
+    }
+
+    /**
+     * Decodes every key of the payload.
+     *
+     * @throws IOException when the payload is not in this format
+     */
+    abstract CompactSecretValues read(SecretPayload payload) throws IOException;
+
+    /**
+     * @return whether {@link #extract(SecretPayload, String)} can look up a single key without decoding the others
+     */
+    boolean canExtract() {
+        return false;
+    }
+
+    /**
+     * Looks up a single key, with the same result as {@link #read(SecretPayload)} followed by a lookup. Only
+     * supported when {@link #canExtract()}.
+     *
+     * @return the value, or {@code null} when the key is not present
+     * @throws IOException when the payload is not in this format
+     * @throws UnsupportedOperationException when this format cannot look up a single key
+     */
+    String extract(SecretPayload payload, String key) throws IOException {
+        throw new UnsupportedOperationException("Secret format " + this + " cannot look up a single key");
+    }
+
+    /**
+     * Checks that the payload is in this format, without keeping any value.
+     *
+     * @throws IOException when the payload is not in this format
+     */
+    void validate(SecretPayload payload) throws IOException {
+        read(payload).zeroize();
+    }
+
+    // decodes through a small window rather than into a copy of the payload
+    private static boolean isUtf8(ByteBuffer bytes) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CharBuffer window = CharBuffer.allocate(1024);
+        ByteBuffer input = bytes.duplicate();
+        try {
+            CoderResult result;
+            do {
+                window.clear();
+                result = decoder.decode(input, window, true);
+                if (result.isError()) {
+                    return false;
+                }
+            } while (result.isOverflow());
+            window.clear();
+            return !decoder.flush(window).isError();
+        } finally {
+            Arrays.fill(window.array(), '\0');
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming reader for JSON and YAML secrets, shared by all providers. {@link JsonFactory} is thread-safe and keeps
+ * its symbol tables and buffer recyclers across calls, so no per-call {@code ObjectMapper} or intermediate tree is
+ * built.
+ * <p>
+ * Nested objects are flattened into dotted keys ({@code {"db":{"primary":{"password":"x"}}}} becomes
+ * {@code db.primary.password}) and array elements are addressed by index ({@code hosts[0]}). JSON {@code null}
+ * values are treated as absent.
+ * <p>
+ * A key found more than once, whether repeated or spelled both as a dotted name and as nested objects
+ * ({@code {"a.b": "x", "a": {"b": "y"}}}), takes its last value in document order, as an {@code ObjectMapper}
+ * binding does. Full reads and single-key extractions apply this rule alike.
+ */
+final class SecretJsonReader {
+
+    // parse errors must not quote the secret
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
+
+    private static final JsonFactory YAML_FACTORY = new YAMLFactory()
+            .disable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
+
+    private SecretJsonReader() {
+    }
+
+    /**
+     * Reads every scalar of the secret into a flat map.
+     *
+     * @throws IOException when the secret is not a JSON object
+     */
+    static Map<String, String> readAll(String secret) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(secret)) {
+            expectObject(parser);
+            Map<String, String> values = new HashMap<>();
+            readObject(parser, null, (name, scalar) -> values.put(name, scalar.getText()));
+            return values;
+        }
+    }
+
+    /**
+     * Reads every scalar of the document under {@code parser} into its compact form, closing the parser. String
+     * values are encoded straight from the parser's buffer, without an intermediate {@code String}.
+     *
+     * @param expandEmbedded whether string values holding a JSON object are flattened below their key as well
+     * @throws IOException when the document is not an object
+     */
+    static CompactSecretValues readCompact(JsonParser parser, boolean expandEmbedded) throws IOException {
+        try {
+            expectObject(parser);
+            CompactSecretValues.Builder values = new CompactSecretValues.Builder(16);
+            readObject(parser, null, compactSink(values, expandEmbedded));
+            return values.build();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static ScalarSink compactSink(CompactSecretValues.Builder values, boolean expandEmbedded) {
+        return (name, scalar) -> {
+            if (scalar.getCurrentToken() != JsonToken.VALUE_STRING) {
+                values.put(name, scalar.getText().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            char[] text = scalar.getTextCharacters();
+            int offset = scalar.getTextOffset();
+            int length = scalar.getTextLength();
+            values.put(name, text, offset, length);
+            if (expandEmbedded && isEmbeddedObject(text, offset, length)) {
+                try (JsonParser embedded = JSON_FACTORY.createParser(text, offset, length)) {
+                    embedded.nextToken();
+                    readObject(embedded, name, compactSink(values, true));
+                }
+            }
+        };
+    }
+
+    // checked in full before anything is read from it, so that a value merely starting with a brace stays a string
+    private static boolean isEmbeddedObject(char[] text, int offset, int length) {
+        int start = offset;
+        while (start < offset + length && Character.isWhitespace(text[start])) {
+            start++;
+        }
+        if (start == offset + length || text[start] != '{') {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(text, offset, length)) {
+            parser.nextToken();
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Extracts a single value from the document under {@code parser}, closing the parser. Every subtree that
+     * cannot contain the key is skipped, but the whole document is read since a later occurrence of the key wins.
+     *
+     * @return the value, or {@code null} when the key is not present
+     * @throws IOException when the document is not an object
+     */
+    static String readValue(JsonParser parser, String key) throws IOException {
+        try {
+            expectObject(parser);
+            return findInObject(parser, null, key);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Checks that the document under {@code parser} is a well-formed object, closing the parser. Nothing is
+     * decoded.
+     *
+     * @throws IOException when the document is not an object
+     */
+    static void validate(JsonParser parser) throws IOException {
+        try {
+            expectObject(parser);
+            parser.skipChildren();
+        } finally {
+            parser.close();
+        }
+    }
+
+    static JsonParser jsonParser(SecretPayload document) throws IOException {
+        return createParser(JSON_FACTORY, document);
+    }
+
+    static JsonParser yamlParser(SecretPayload document) throws IOException {
+        return createParser(YAML_FACTORY, document);
+    }
+
+    // bytes are parsed in place; only a buffer without an accessible array is read through a stream
+    private static JsonParser createParser(JsonFactory factory, SecretPayload document) throws IOException {
+        if (document.getText() != null) {
+            return factory.createParser(document.getText());
+        }
+        ByteBuffer bytes = document.getBytes();
+        if (bytes.hasArray()) {
+            return factory.createParser(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+        return factory.createParser(document.openStream());
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Secret is not an object");
+        }
+    }
+
+    // receives each scalar, with the parser positioned on it
+    private interface ScalarSink {
+        void accept(String name, JsonParser scalar) throws IOException;
+    }
+
+    private static void readObject(JsonParser parser, String path, ScalarSink values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = path == null ? parser.getCurrentName() : path + '.' + parser.getCurrentName();
+            readValue(parser, parser.nextToken(), name, values);
+        }
+    }
+
+    private static void readArray(JsonParser parser, String path, ScalarSink values) throws IOException {
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            readValue(parser, token, path + '[' + index++ + ']', values);
+        }
+    }
+
+    private static void readValue(JsonParser parser, JsonToken token, String name, ScalarSink values) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            readObject(parser, name, values);
+        } else if (token == JsonToken.START_ARRAY) {
+            readArray(parser, name, values);
+        } else if (token != JsonToken.VALUE_NULL) {
+            values.accept(name, parser);
+        }
+    }
+
+    // the last occurrence of the key wins, so the search goes on after a match
+    private static String findInObject(JsonParser parser, String path, String key) throws IOException {
+        String found = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = path == null ? parser.getCurrentName() : path + '.' + parser.getCurrentName();
+            String value = findValue(parser, parser.nextToken(), name, key);
+            if (value != null) {
+                found = value;
+            }
+        }
+        return found;
+    }
+
+    private static String findInArray(JsonParser parser, String path, String key) throws IOException {
+        String found = null;
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String value = findValue(parser, token, path + '[' + index++ + ']', key);
+            if (value != null) {
+                found = value;
+            }
+        }
+        return found;
+    }
+
+    private static String findValue(JsonParser parser, JsonToken token, String name, String key) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            if (!isPathPrefix(name, key)) {
+                parser.skipChildren();
+                return null;
+            }
+            return token == JsonToken.START_OBJECT ? findInObject(parser, name, key) : findInArray(parser, name, key);
+        }
+        if (token != JsonToken.VALUE_NULL && name.equals(key)) {
+            return parser.getText();
+        }
+        return null;
+    }
+
+    private static boolean isPathPrefix(String path, String key) {
+        if (key.length() <= path.length() || !key.startsWith(path)) {
+            return false;
+        }
+        char next = key.charAt(path.length());
+        return next == '.' || next == '[';
+    }
+}
@@ -0,0 +1,127 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * One version of a secret as downloaded by a {@link SecretBackend}: either a document in one of the
+ * {@link SecretFormat}s, decoded on demand, or key/value pairs the store already returns individually.
+ */
+public final class SecretPayload {
+
+    private final String versionId;
+
+    private final SecretFormat format;
+
+    // a document is held either as text or as bytes, as received
+    private final String text;
+
+    private final ByteBuffer bytes;
+
+    private final Map<String, String> values;
+
+    private SecretPayload(String versionId, SecretFormat format, String text, ByteBuffer bytes, Map<String, String> values) {
+        this.versionId = versionId;
+        this.format = format;
+        this.text = text;
+        this.bytes = bytes;
+        this.values = values;
+    }
+
+    /**
+     * @param document JSON object holding the keys of the secret
+     */
+    public static SecretPayload ofDocument(String versionId, String document) {
+        return ofDocument(versionId, SecretFormat.JSON, document);
+    }
+
+    /**
+     * @param document document holding the keys of the secret
+     */
+    public static SecretPayload ofDocument(String versionId, SecretFormat format, String document) {
+        if (format == null || document == null) {
+            throw new IllegalArgumentException("Secret format and document are required");
+        }
+        return new SecretPayload(versionId, format, document, null, null);
+    }
+
+    /**
+     * @param document UTF-8 document holding the keys of the secret, read from its position to its limit. It is
+     *                 not copied and must not be modified afterwards.
+     */
+    public static SecretPayload ofDocument(String versionId, SecretFormat format, ByteBuffer document) {
+        if (format == null || document == null) {
+            throw new IllegalArgumentException("Secret format and document are required");
+        }
+        return new SecretPayload(versionId, format, null, document.slice(), null);
+    }
+
+    /**
+     * @param values keys of the secret, not copied
+     */
+    public static SecretPayload ofValues(String versionId, Map<String, String> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Secret values are required");
+        }
+        return new SecretPayload(versionId, null, null, null, values);
+    }
+
+    String getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * @return whether the payload holds a document rather than values
+     */
+    boolean isDocument() {
+        return values == null;
+    }
+
+    /**
+     * @return the format of the document, or {@code null} when the payload holds values
+     */
+    SecretFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the document when it was received as text, otherwise {@code null}
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * @return the document when it was received as bytes, otherwise {@code null}. Callers read through a
+     * {@link ByteBuffer#duplicate() duplicate}.
+     */
+    ByteBuffer getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return a stream over a document received as bytes, reading them in place
+     */
+    InputStream openStream() {
+        if (bytes.hasArray()) {
+            return new ByteArrayInputStream(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+        return new ByteBufferBackedInputStream(bytes.duplicate());
+    }
+
+    Reader openReader() {
+        return text != null ? new StringReader(text) : new InputStreamReader(openStream(), StandardCharsets.UTF_8);
+    }
+
+    Map<String, String> getValues() {
+        return values;
+    }
+}
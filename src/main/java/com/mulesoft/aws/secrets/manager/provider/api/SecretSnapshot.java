@@ -0,0 +1,225 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of one version of a secret. A new snapshot is published each time the secret is loaded, so a
+ * reader holding a snapshot sees every key from the same generation even while a refresh swaps in the next one.
+ * <p>
+ * A snapshot can be published before its payload is parsed. For formats that allow it, single-key
+ * {@link #extract(String) extractions} then stream through the payload, skipping what cannot hold the key; the full
+ * key/value table is only built on the first lookup that needs it, after which the raw payload is released.
+ * <p>
+ * Values are held in a {@link CompactSecretValues} table and zeroed as soon as a newer version of the secret
+ * replaces the snapshot. Reading a value from a retired snapshot fails with an {@link IllegalStateException};
+ * callers keeping a snapshot should fetch the current one again when that happens, as
+ * {@link AWSSecretsManagerConfigurationPropertiesProvider#readSnapshot(String, java.util.function.Function)} does.
+ */
+public final class SecretSnapshot {
+
+    static final SecretSnapshot EMPTY = new SecretSnapshot(0, null, CompactSecretValues.EMPTY, 0);
+
+    private final long generation;
+
+    private final String versionId;
+
+    // values are written before payload is cleared, so a reader that sees a null payload also sees the values
+    private volatile CompactSecretValues values;
+
+    private volatile SecretPayload payload;
+
+    private volatile boolean retired;
+
+    private final long loadedAt;
+
+    // records parse and extraction time of the payload, null when not measured
+    private final LatencyHistogram parseTime;
+
+    SecretSnapshot(long generation, String versionId, Map<String, String> values, long loadedAt) {
+        this(generation, versionId, CompactSecretValues.of(values), loadedAt);
+    }
+
+    SecretSnapshot(long generation, String versionId, CompactSecretValues values, long loadedAt) {
+        this.generation = generation;
+        this.versionId = versionId;
+        this.values = values;
+        this.loadedAt = loadedAt;
+        this.parseTime = null;
+    }
+
+    private SecretSnapshot(long generation, SecretPayload payload, long loadedAt, LatencyHistogram parseTime) {
+        this.generation = generation;
+        this.versionId = payload.getVersionId();
+        this.payload = payload;
+        this.loadedAt = loadedAt;
+        this.parseTime = parseTime;
+    }
+
+    /**
+     * Creates a snapshot whose document is decoded on demand.
+     *
+     * @param payload   a payload holding a document
+     * @param parseTime histogram receiving the parse and extraction times, may be {@code null}
+     */
+    static SecretSnapshot unparsed(long generation, SecretPayload payload, long loadedAt, LatencyHistogram parseTime) {
+        return new SecretSnapshot(generation, payload, loadedAt, parseTime);
+    }
+
+    /**
+     * @return a copy of this snapshot confirmed to still be current at {@code loadedAt}
+     */
+    SecretSnapshot revalidated(long loadedAt) {
+        SecretPayload unparsedPayload = payload;
+        if (unparsedPayload != null) {
+            return new SecretSnapshot(generation, unparsedPayload, loadedAt, parseTime);
+        }
+        return new SecretSnapshot(generation, versionId, values, loadedAt);
+    }
+
+    /**
+     * Parses the payload if that has not happened yet.
+     *
+     * @return this snapshot
+     * @throws IllegalStateException when the payload is not in the format of the secret
+     */
+    SecretSnapshot parsed() {
+        values();
+        return this;
+    }
+
+    /**
+     * Checks that the payload is in the format of the secret. When single keys can be extracted from it, the
+     * payload is scanned without building the key/value table; otherwise it is parsed.
+     *
+     * @return this snapshot
+     * @throws IllegalStateException when the payload is not in the format of the secret
+     */
+    SecretSnapshot validated() {
+        SecretPayload unparsedPayload = payload;
+        if (unparsedPayload == null || !unparsedPayload.getFormat().canExtract()) {
+            return parsed();
+        }
+        long start = System.nanoTime();
+        try {
+            unparsedPayload.getFormat().validate(unparsedPayload);
+        } catch (IOException e) {
+            throw parseFailure(unparsedPayload, e);
+        } finally {
+            recordParseTime(start);
+        }
+        return this;
+    }
+
+    /**
+     * Looks up a single key. Before the full table has been built this streams through the payload instead of
+     * materializing every value, when the format allows it.
+     */
+    String extract(String key) {
+        SecretPayload unparsedPayload = payload;
+        if (unparsedPayload == null || !unparsedPayload.getFormat().canExtract()) {
+            return values().get(key);
+        }
+        long start = System.nanoTime();
+        try {
+            return unparsedPayload.getFormat().extract(unparsedPayload, key);
+        } catch (IOException e) {
+            throw parseFailure(unparsedPayload, e);
+        } finally {
+            recordParseTime(start);
+        }
+    }
+
+    private void recordParseTime(long startNanos) {
+        if (parseTime != null) {
+            parseTime.recordSince(startNanos);
+        }
+    }
+
+    CompactSecretValues values() {
+        CompactSecretValues current = values;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (values == null) {
+                if (retired) {
+                    throw new RetiredSnapshotException();
+                }
+                long start = System.nanoTime();
+                try {
+                    values = payload.getFormat().read(payload);
+                } catch (IOException e) {
+                    throw parseFailure(payload, e);
+                } finally {
+                    recordParseTime(start);
+                }
+                payload = null;
+            }
+            return values;
+        }
+    }
+
+    private IllegalStateException parseFailure(SecretPayload unparsedPayload, IOException e) {
+        return new IllegalStateException("Failed to parse secret version " + versionId + " as "
+                + unparsedPayload.getFormat() + " -- " + e.getMessage(), e);
+    }
+
+    /**
+     * Zeroes the values once a newer version has replaced this snapshot, together with those of every
+     * {@link #revalidated(long) revalidated} copy sharing them. An unparsed payload is dropped instead, since
+     * strings cannot be overwritten and the bytes of a binary payload belong to the response they came with.
+     */
+    synchronized void retire() {
+        if (this == EMPTY) {
+            return;
+        }
+        retired = true;
+        payload = null;
+        CompactSecretValues current = values;
+        if (current != null) {
+            current.zeroize();
+        }
+    }
+
+    /**
+     * @return 0 until the secret is loaded, then incremented each time a different version is loaded
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public boolean isLoaded() {
+        return generation > 0;
+    }
+
+    /**
+     * @return the Secrets Manager VersionId the values were read from
+     */
+    public String getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * @throws IllegalStateException when a newer version of the secret retired this snapshot
+     */
+    public String get(String key) {
+        return values().get(key);
+    }
+
+    public boolean containsKey(String key) {
+        return values().containsKey(key);
+    }
+
+    public Set<String> keySet() {
+        return values().keySet();
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which the values were last confirmed to be current
+     */
+    long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,48 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+/**
+ * JMX view of the resolution statistics of one secret, registered as
+ * {@code com.mulesoft.aws.secrets.manager:type=Secret,instance=<provider instance>,secret=<secret name>}.
+ * Latencies are in milliseconds.
+ */
+public interface SecretStatisticsMXBean {
+
+    String getSecretName();
+
+    long getGeneration();
+
+    /**
+     * @return seconds since the cached values were last confirmed current, -1 while the secret is not loaded
+     */
+    long getSnapshotAgeSeconds();
+
+    long getHits();
+
+    long getMisses();
+
+    long getVersionCheckSkips();
+
+    long getFetches();
+
+    long getNegativeCacheHits();
+
+    long getRefreshFailures();
+
+    long getInvalidations();
+
+    double getFetchLatencyMeanMillis();
+
+    double getFetchLatencyP50Millis();
+
+    double getFetchLatencyP99Millis();
+
+    double getFetchLatencyMaxMillis();
+
+    double getVersionCheckLatencyMeanMillis();
+
+    double getVersionCheckLatencyP99Millis();
+
+    double getParseTimeMeanMillis();
+
+    double getParseTimeP99Millis();
+}
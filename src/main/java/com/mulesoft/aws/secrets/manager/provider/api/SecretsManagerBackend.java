@@ -0,0 +1,191 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+import software.amazon.awssdk.services.secretsmanager.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.secretsmanager.model.SecretsManagerException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION;
+
+/**
+ * {@link SecretBackend} on AWS Secrets Manager: secrets are documents, JSON unless configured otherwise, read with
+ * {@code GetSecretValue}, and their AWSCURRENT version is checked with the cheaper {@code DescribeSecret}.
+ */
+class SecretsManagerBackend implements SecretBackend {
+
+    private final static Logger logger = LoggerFactory.getLogger(SecretsManagerBackend.class);
+
+    static final String NAME = "AWS Secrets Manager";
+
+    private final SecretFetcher fetcher;
+
+    private final Map<String, SecretFormat> formats;
+
+    // secrets whose DescribeSecret is denied, downloaded on every refresh
+    private final Set<String> versionChecksDenied = ConcurrentHashMap.newKeySet();
+
+    SecretsManagerBackend(SecretFetcher fetcher) {
+        this(fetcher, Collections.emptyMap());
+    }
+
+    /**
+     * @param formats format of the secrets by name, as configured; secrets not listed are {@link SecretFormat#JSON}
+     */
+    SecretsManagerBackend(SecretFetcher fetcher, Map<String, SecretFormat> formats) {
+        this.fetcher = fetcher;
+        this.formats = formats;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return fetcher.isNonBlocking();
+    }
+
+    @Override
+    public CompletableFuture<SecretPayload> getSecret(String secretName) {
+        if (logger.isDebugEnabled())
+            logger.debug("AWS SM Lookup within secret Id: {}", secretName);
+
+        GetSecretValueRequest valueRequest = GetSecretValueRequest.builder()
+                .secretId(secretName)
+                .versionStage(AWS_CURRENT_VERSION)
+                .build();
+        return fetcher.getSecretValue(valueRequest).handle((valueResponse, failure) -> {
+            if (failure != null) {
+                Throwable cause = SingleFlight.unwrap(failure);
+                if (cause instanceof ResourceNotFoundException) {
+                    logger.error("Failed to Get Secret from AWS SM -- {} ", cause.getMessage());
+                    throw new RuntimeException("The requested secret " + secretName + " was not found");
+                }
+                if (cause instanceof SecretsManagerException) {
+                    logger.error("Failed to Get Secret from AWS SM -- {} ", cause.getMessage());
+                    throw new RuntimeException("Failed to get secret " + secretName + " from AWS SM -- " + cause.getMessage(), cause);
+                }
+                throw new CompletionException(cause);
+            }
+            if (valueResponse == null) {
+                logger.error("Failed to Get Secret from AWS SM - valueResponse is empty ");
+                throw new RuntimeException("Failed to Refresh the Cache from AWS SM");
+            }
+            return payloadOf(valueResponse, formats.getOrDefault(secretName, SecretFormat.JSON));
+        });
+    }
+
+    /**
+     * The SDK has already decoded {@code SecretBinary} from base64, so its bytes are decoded in place. Binary JSON
+     * secrets holding base64 text, as the module used to require, are decoded once more when that yields a JSON
+     * object; other bytes are left as they are.
+     */
+    private static SecretPayload payloadOf(GetSecretValueResponse valueResponse, SecretFormat format) {
+        if (valueResponse.secretString() != null) {
+            return SecretPayload.ofDocument(valueResponse.versionId(), format, valueResponse.secretString());
+        }
+        if (valueResponse.secretBinary() == null) {
+            throw new RuntimeException("Secret version " + valueResponse.versionId() + " holds neither SecretString nor SecretBinary");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(valueResponse.secretBinary().asByteArrayUnsafe());
+        if ((format == SecretFormat.JSON || format == SecretFormat.NESTED_JSON) && isBase64Text(bytes)) {
+            ByteBuffer decoded = decodeJsonObject(bytes);
+            if (decoded != null) {
+                bytes = decoded;
+            }
+        }
+        return SecretPayload.ofDocument(valueResponse.versionId(), format, bytes);
+    }
+
+    // a JSON document starts with a brace or whitespace, neither of which is part of the base64 alphabet
+    private static boolean isBase64Text(ByteBuffer bytes) {
+        if (!bytes.hasRemaining()) {
+            return false;
+        }
+        byte first = bytes.get(bytes.position());
+        return (first >= 'A' && first <= 'Z') || (first >= 'a' && first <= 'z') || (first >= '0' && first <= '9')
+                || first == '+' || first == '/';
+    }
+
+    /**
+     * @return the decoded bytes when the base64 text holds a JSON object, or {@code null}, the decoded copy being
+     * zeroed, when it does not
+     */
+    private static ByteBuffer decodeJsonObject(ByteBuffer base64) {
+        ByteBuffer decoded;
+        try {
+            decoded = Base64.getMimeDecoder().decode(base64.duplicate());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        for (int i = decoded.position(); i < decoded.limit(); i++) {
+            byte next = decoded.get(i);
+            if (next == '{') {
+                return decoded;
+            }
+            if (next != ' ' && next != '\t' && next != '\n' && next != '\r') {
+                break;
+            }
+        }
+        Arrays.fill(decoded.array(), (byte) 0);
+        return null;
+    }
+
+    /**
+     * Returns the id of the version currently labelled AWSCURRENT, using {@code DescribeSecret}, or {@code null}
+     * when it cannot be determined.
+     */
+    @Override
+    public CompletableFuture<String> getCurrentVersion(String secretName) {
+        if (versionChecksDenied.contains(secretName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return fetcher.describeSecret(DescribeSecretRequest.builder().secretId(secretName).build())
+                .handle((describeResponse, failure) -> {
+                    if (failure == null) {
+                        return currentVersionOf(describeResponse);
+                    }
+                    Throwable cause = SingleFlight.unwrap(failure);
+                    if (!(cause instanceof SecretsManagerException)) {
+                        throw new CompletionException(cause);
+                    }
+                    SecretsManagerException e = (SecretsManagerException) cause;
+                    if (e.statusCode() == 403 || (e.awsErrorDetails() != null
+                            && "AccessDeniedException".equals(e.awsErrorDetails().errorCode()))) {
+                        versionChecksDenied.add(secretName);
+                        logger.warn("DescribeSecret is not permitted for secret {}, refreshes will always download the secret -- {}",
+                                secretName, e.getMessage());
+                    } else {
+                        logger.warn("Version check of secret {} failed, downloading it -- {}", secretName, e.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private static String currentVersionOf(DescribeSecretResponse describeResponse) {
+        if (describeResponse != null && describeResponse.hasVersionIdsToStages()) {
+            for (Map.Entry<String, List<String>> version : describeResponse.versionIdsToStages().entrySet()) {
+                if (version.getValue().contains(AWS_CURRENT_VERSION)) {
+                    return version.getKey();
+                }
+            }
+        }
+        return null;
+    }
+}
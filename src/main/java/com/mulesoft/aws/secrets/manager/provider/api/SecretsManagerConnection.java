@@ -0,0 +1,86 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Secrets Manager client, wrapped in its {@link SecretFetcher}, and optionally a Parameter Store backend and an
+ * invalidation queue consumer, together with the HTTP clients, STS client and credential providers they were built
+ * on. Instances are shared between providers through the {@link ClientRegistry}.
+ */
+final class SecretsManagerConnection implements AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(SecretsManagerConnection.class);
+
+    static final ClientRegistry<SecretsManagerConnection> REGISTRY = new ClientRegistry<>();
+
+    private final SecretFetcher fetcher;
+
+    // null when no parameter paths are configured
+    private final SecretBackend parameterBackend;
+
+    // null when no invalidation queue is configured
+    private final InvalidationSource invalidationSource;
+
+    private final LatencyHistogram assumeRoleLatency;
+
+    // completes with the time the first credentials took to resolve
+    private final CompletableFuture<Duration> credentialsResolution;
+
+    // in order of creation
+    private final List<AutoCloseable> resources;
+
+    SecretsManagerConnection(SecretFetcher fetcher, SecretBackend parameterBackend, InvalidationSource invalidationSource,
+                             LatencyHistogram assumeRoleLatency, CompletableFuture<Duration> credentialsResolution,
+                             List<AutoCloseable> resources) {
+        this.fetcher = fetcher;
+        this.parameterBackend = parameterBackend;
+        this.invalidationSource = invalidationSource;
+        this.assumeRoleLatency = assumeRoleLatency;
+        this.credentialsResolution = credentialsResolution;
+        this.resources = resources;
+    }
+
+    SecretFetcher getFetcher() {
+        return fetcher;
+    }
+
+    SecretBackend getParameterBackend() {
+        return parameterBackend;
+    }
+
+    InvalidationSource getInvalidationSource() {
+        return invalidationSource;
+    }
+
+    LatencyHistogram getAssumeRoleLatency() {
+        return assumeRoleLatency;
+    }
+
+    /**
+     * @return a future completing with the time the first credentials took to resolve, or failing with the
+     * reason they could not be. Their provider caches them, so the SDK clients reuse them.
+     */
+    CompletableFuture<Duration> getCredentialsResolution() {
+        return credentialsResolution;
+    }
+
+    /**
+     * Closes the resources in reverse order of creation, so that clients outlive the credential providers
+     * built on them and the HTTP client outlives every SDK client.
+     */
+    @Override
+    public void close() {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close {} -- {}", resources.get(i), e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+/**
+ * Raised when AWS Secrets Manager could not be reached: calls kept being throttled or failing with server or
+ * network errors, or the circuit breaker is suspending calls. Unlike a missing secret or a denied access, the
+ * same call may succeed later.
+ */
+class SecretsManagerUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    SecretsManagerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,289 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypted local copy of the parsed secrets, used to start without waiting for AWS Secrets Manager.
+ * <p>
+ * Each secret is kept in its own file, named after the SHA-256 of its source and name and encrypted with
+ * AES-GCM. The source, such as the region, endpoint and account the secret is read from, identifies the secret
+ * together with its name: secrets of the same name from different sources get different files. Both are bound to
+ * the ciphertext as additional authenticated data, so a file cannot be replayed under another secret. Files are
+ * written to a temporary file and atomically moved into place, so a crash while writing never leaves a truncated
+ * snapshot behind.
+ */
+public final class SnapshotStore {
+
+    private final static Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x41534d53;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final String FILE_SUFFIX = ".snapshot";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path directory;
+
+    private final SecretKey key;
+
+    private final Duration maxAge;
+
+    // where the secrets come from, empty when not set
+    private final String source;
+
+    /**
+     * @param directory directory holding the snapshot files, created on first write
+     * @param key       AES key the snapshots are encrypted with
+     * @param maxAge    age after which a stored snapshot is ignored and the secret must be fetched from AWS
+     */
+    public SnapshotStore(Path directory, SecretKey key, Duration maxAge) {
+        this(directory, key, maxAge, "");
+    }
+
+    private SnapshotStore(Path directory, SecretKey key, Duration maxAge, String source) {
+        if (directory == null || key == null) {
+            throw new IllegalArgumentException("Snapshot directory and key are required");
+        }
+        if (maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Snapshot maximum age must be positive");
+        }
+        this.directory = directory;
+        this.key = key;
+        this.maxAge = maxAge;
+        this.source = source;
+    }
+
+    /**
+     * @param source where the secrets come from, such as their region, endpoint and account, appended to the
+     *               source of this store
+     * @return a store over the same directory for the secrets of {@code source}
+     */
+    public SnapshotStore forSource(String source) {
+        return new SnapshotStore(directory, key, maxAge, this.source.isEmpty() ? source : this.source + "|" + source);
+    }
+
+    /**
+     * Resolves the snapshot encryption key from its configured source: {@code env:NAME} reads an environment
+     * variable, {@code sysprop:NAME} a system property and {@code file:PATH} a file; any other value is the key
+     * itself. In every case the key is the Base64 encoding of 16, 24 or 32 random bytes.
+     */
+    public static SecretKey resolveKey(String keySource) {
+        if (keySource == null || keySource.trim().isEmpty()) {
+            throw new IllegalArgumentException("Snapshot key is required when a snapshot directory is configured");
+        }
+        String encodedKey;
+        if (keySource.startsWith("env:")) {
+            encodedKey = System.getenv(keySource.substring("env:".length()));
+        } else if (keySource.startsWith("sysprop:")) {
+            encodedKey = System.getProperty(keySource.substring("sysprop:".length()));
+        } else if (keySource.startsWith("file:")) {
+            try {
+                encodedKey = new String(Files.readAllBytes(Paths.get(keySource.substring("file:".length()))),
+                        StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Snapshot key file cannot be read -- " + e.getMessage(), e);
+            }
+        } else {
+            encodedKey = keySource;
+        }
+        if (encodedKey == null) {
+            throw new IllegalArgumentException("Snapshot key source " + keySource + " is not set");
+        }
+
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(encodedKey.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Snapshot key must be Base64 encoded");
+        }
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalArgumentException("Snapshot key must be a 128, 192 or 256 bit AES key");
+        }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Writes the values of a snapshot, replacing the previous copy of the secret.
+     */
+    void save(String secretName, SecretSnapshot snapshot) throws IOException, GeneralSecurityException {
+        byte[] versionId = (snapshot.getVersionId() == null ? "" : snapshot.getVersionId()).getBytes(StandardCharsets.UTF_8);
+        CompactSecretValues values = snapshot.values();
+        byte[][] keys = new byte[values.size()][];
+        int length = 8 + 4 + versionId.length + 4 + values.getValueBytes();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = values.keyAt(i).getBytes(StandardCharsets.UTF_8);
+            length += 4 + keys[i].length + 4;
+        }
+
+        // serialized into an array of the exact size rather than a growing stream buffer, so that the plaintext
+        // exists in a single array, zeroed once encrypted
+        byte[] plaintext = new byte[length];
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        byte[] header = header(iv);
+        byte[] encrypted;
+        try {
+            try (DataOutputStream out = new DataOutputStream(new ByteBufferBackedOutputStream(ByteBuffer.wrap(plaintext)))) {
+                out.writeLong(System.currentTimeMillis());
+                writeBytes(out, versionId);
+                out.writeInt(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    writeBytes(out, keys[i]);
+                    values.writeValue(i, out);
+                }
+            }
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(header);
+            cipher.updateAAD(identityOf(secretName));
+            encrypted = cipher.doFinal(plaintext);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+
+        Files.createDirectories(directory);
+        Path target = fileOf(secretName);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            restrictToOwner(temporary);
+            ByteBuffer file = ByteBuffer.allocate(header.length + encrypted.length).put(header).put(encrypted);
+            Files.write(temporary, file.array());
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the stored copy of a secret.
+     *
+     * @return the stored snapshot, its load time set back by its age on disk, or {@code null} when there is
+     * no copy or it is older than the maximum age
+     * @throws GeneralSecurityException when the file was not written with the configured key or was tampered with
+     */
+    SecretSnapshot load(String secretName) throws IOException, GeneralSecurityException {
+        byte[] file;
+        try {
+            file = Files.readAllBytes(fileOf(secretName));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        if (file.length < 5 + IV_LENGTH || buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) {
+            throw new IOException("Unrecognized snapshot file format");
+        }
+        byte[] iv = new byte[IV_LENGTH];
+        buffer.get(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(header(iv));
+        cipher.updateAAD(identityOf(secretName));
+        byte[] plain = cipher.doFinal(file, buffer.position(), buffer.remaining());
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+            long ageMillis = Math.max(0, System.currentTimeMillis() - in.readLong());
+            if (ageMillis > maxAge.toMillis()) {
+                if (logger.isDebugEnabled())
+                    logger.debug("Snapshot of secret {} is {} ms old, ignoring it", secretName, ageMillis);
+                return null;
+            }
+            String versionId = readString(in);
+            int size = in.readInt();
+            CompactSecretValues.Builder values = new CompactSecretValues.Builder(size);
+            for (int i = 0; i < size; i++) {
+                values.put(readString(in), readBytes(in));
+            }
+            return new SecretSnapshot(1, versionId.isEmpty() ? null : versionId, values.build(),
+                    System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMillis));
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    private byte[] identityOf(String secretName) {
+        return (source + '\0' + secretName).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path fileOf(String secretName) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identityOf(secretName));
+            StringBuilder name = new StringBuilder(digest.length * 2 + FILE_SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return directory.resolve(name.append(FILE_SUFFIX).toString());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] header(byte[] iv) {
+        return ByteBuffer.allocate(5 + IV_LENGTH).putInt(MAGIC).put(FORMAT_VERSION).put(iv).array();
+    }
+
+    private static void restrictToOwner(Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Cannot restrict the permissions of {} -- {}", file, e.toString());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
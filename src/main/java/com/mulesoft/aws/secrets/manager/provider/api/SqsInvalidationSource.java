@@ -0,0 +1,272 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationSource} reading change events from an SQS queue, typically the target of an EventBridge
+ * rule. While there are subscribers, a single daemon thread per queue URL long-polls the queue, hands the id of
+ * every changed secret to the subscribers of every source reading that queue and deletes the messages it has
+ * read. Providers of a runtime that do not share a connection, for example because they use different regions,
+ * thereby all see every event of a queue they share instead of competing for its messages. The poller calls SQS
+ * with the client of one of its sources, and moves on to another one when that source is closed.
+ * <p>
+ * The message bodies understood are EventBridge events, optionally wrapped in an SNS notification:
+ * <ul>
+ *   <li>{@code aws.secretsmanager} events recorded by CloudTrail for {@code PutSecretValue}, {@code UpdateSecret},
+ *   {@code UpdateSecretVersionStage} and {@code RotationSucceeded}</li>
+ *   <li>{@code aws.ssm} {@code Parameter Store Change} events</li>
+ *   <li>a plain {@code {"secretId": "<name or ARN>"}} document, for manual triggers</li>
+ * </ul>
+ * Any other message is deleted without effect. Receive failures are retried with an exponential backoff of up
+ * to a minute.
+ */
+final class SqsInvalidationSource implements InvalidationSource, AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(SqsInvalidationSource.class);
+
+    private static final Set<String> SECRET_CHANGE_EVENTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "PutSecretValue", "UpdateSecret", "UpdateSecretVersionStage", "RotationSucceeded")));
+
+    // longest wait SQS allows for a long poll
+    private static final int MAX_WAIT_SECONDS = 20;
+
+    private static final int MAX_MESSAGES = 10;
+
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    // pollers by queue URL, guarded by itself
+    private static final Map<String, QueuePoller> POLLERS = new HashMap<>();
+
+    private final SqsClient client;
+
+    private final String queueUrl;
+
+    private final int waitTimeSeconds;
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    private QueuePoller poller;
+
+    private boolean closed;
+
+    /**
+     * @param socketTimeout socket timeout of the HTTP client, which bounds the long-poll wait
+     */
+    SqsInvalidationSource(SqsClient client, String queueUrl, Duration socketTimeout) {
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.waitTimeSeconds = (int) Math.max(0, Math.min(MAX_WAIT_SECONDS, socketTimeout.getSeconds() - 1));
+    }
+
+    @Override
+    public AutoCloseable subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+        start();
+        return () -> listeners.remove(listener);
+    }
+
+    private synchronized void start() {
+        if (poller != null || closed) {
+            return;
+        }
+        poller = QueuePoller.join(this);
+    }
+
+    /**
+     * Reads one batch of messages with the client of this source, delivers the changed secrets to the
+     * subscribers of {@code sources} and deletes the messages.
+     */
+    private void receive(List<SqsInvalidationSource> sources) {
+        ReceiveMessageResponse response = client.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(MAX_MESSAGES)
+                .waitTimeSeconds(waitTimeSeconds)
+                .build());
+        if (!response.hasMessages() || response.messages().isEmpty()) {
+            return;
+        }
+
+        // a rotation raises several events for the same secret, each batch refreshes it once
+        Set<String> secretIds = new LinkedHashSet<>();
+        List<DeleteMessageBatchRequestEntry> read = new ArrayList<>();
+        for (Message message : response.messages()) {
+            String secretId = parseSecretId(message.body());
+            if (secretId != null) {
+                secretIds.add(secretId);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Ignoring message {} from {}, it is not a secret change event", message.messageId(), queueUrl);
+            }
+            read.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(read.size()))
+                    .receiptHandle(message.receiptHandle())
+                    .build());
+        }
+        for (String secretId : secretIds) {
+            if (logger.isDebugEnabled())
+                logger.debug("Secret {} changed", secretId);
+            for (SqsInvalidationSource source : sources) {
+                source.deliver(secretId);
+            }
+        }
+        client.deleteMessageBatch(DeleteMessageBatchRequest.builder().queueUrl(queueUrl).entries(read).build());
+    }
+
+    private void deliver(String secretId) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(secretId);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to invalidate secret {} -- {}", secretId, e.toString());
+            }
+        }
+    }
+
+    /**
+     * @return the id of the secret or parameter a message reports as changed, or {@code null} when the message
+     * is not a change event
+     */
+    static String parseSecretId(String body) {
+        Map<String, String> event;
+        try {
+            event = SecretJsonReader.readAll(body);
+        } catch (IOException e) {
+            return null;
+        }
+        if ("Notification".equals(event.get("Type")) && event.get("Message") != null) {
+            return parseSecretId(event.get("Message"));
+        }
+        String source = event.get("source");
+        if ("aws.secretsmanager".equals(source)) {
+            if (!SECRET_CHANGE_EVENTS.contains(event.get("detail.eventName"))) {
+                return null;
+            }
+            String secretId = event.get("detail.additionalEventData.SecretId");
+            return secretId != null ? secretId : event.get("detail.requestParameters.secretId");
+        }
+        if ("aws.ssm".equals(source)) {
+            return "Parameter Store Change".equals(event.get("detail-type")) ? event.get("detail.name") : null;
+        }
+        return source == null ? event.get("secretId") : null;
+    }
+
+    /**
+     * Stops delivering events to the subscribers of this source. The queue stops being polled once every source
+     * reading it is closed; a receive in progress with the client of this source is abandoned.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (poller != null) {
+            poller.leave(this);
+            poller = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SqsInvalidationSource(" + queueUrl + ")";
+    }
+
+    /**
+     * The thread polling one queue on behalf of the sources reading it.
+     */
+    private static final class QueuePoller {
+
+        private final String queueUrl;
+
+        private final List<SqsInvalidationSource> sources = new CopyOnWriteArrayList<>();
+
+        private final Thread thread;
+
+        private volatile boolean stopped;
+
+        private QueuePoller(String queueUrl) {
+            this.queueUrl = queueUrl;
+            this.thread = new Thread(this::poll, "aws-secrets-invalidation");
+            this.thread.setDaemon(true);
+        }
+
+        static QueuePoller join(SqsInvalidationSource source) {
+            synchronized (POLLERS) {
+                QueuePoller poller = POLLERS.get(source.queueUrl);
+                if (poller == null) {
+                    poller = new QueuePoller(source.queueUrl);
+                    poller.sources.add(source);
+                    POLLERS.put(source.queueUrl, poller);
+                    poller.thread.start();
+                    logger.info("Listening for secret change events on {}", source.queueUrl);
+                } else {
+                    poller.sources.add(source);
+                    if (logger.isDebugEnabled())
+                        logger.debug("Sharing the events of {} with {} other source(s)", source.queueUrl, poller.sources.size() - 1);
+                }
+                return poller;
+            }
+        }
+
+        void leave(SqsInvalidationSource source) {
+            synchronized (POLLERS) {
+                sources.remove(source);
+                if (!sources.isEmpty()) {
+                    return;
+                }
+                POLLERS.remove(queueUrl);
+                stopped = true;
+            }
+            thread.interrupt();
+        }
+
+        private void poll() {
+            long backoffMillis = 0;
+            while (!stopped) {
+                Iterator<SqsInvalidationSource> current = sources.iterator();
+                if (!current.hasNext()) {
+                    return;
+                }
+                SqsInvalidationSource receiver = current.next();
+                try {
+                    receiver.receive(sources);
+                    backoffMillis = 0;
+                } catch (RuntimeException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    if (!sources.contains(receiver)) {
+                        // the client was closed with its source, carry on with the client of another one
+                        continue;
+                    }
+                    backoffMillis = backoffMillis == 0 ? 1000 : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                    logger.warn("Failed to receive secret change events from {}, retrying in {} ms -- {}",
+                            queueUrl, backoffMillis, e.toString());
+                    try {
+                        Thread.sleep(backoffMillis);
+                    } catch (InterruptedException ie) {
+                        // interrupted on stop, or when the receiving source was closed
+                    }
+                }
+            }
+        }
+    }
+}
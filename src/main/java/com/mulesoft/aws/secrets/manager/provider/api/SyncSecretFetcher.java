@@ -0,0 +1,48 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link SecretFetcher} running the calls of a blocking {@link SecretsManagerClient} on the calling thread and
+ * returning them as completed futures.
+ */
+class SyncSecretFetcher implements SecretFetcher {
+
+    private final SecretsManagerClient client;
+
+    SyncSecretFetcher(SecretsManagerClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<GetSecretValueResponse> getSecretValue(GetSecretValueRequest request) {
+        return call(() -> client.getSecretValue(request));
+    }
+
+    @Override
+    public CompletableFuture<DescribeSecretResponse> describeSecret(DescribeSecretRequest request) {
+        return call(() -> client.describeSecret(request));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return false;
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(call.get());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
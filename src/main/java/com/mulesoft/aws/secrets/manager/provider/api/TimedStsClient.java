@@ -0,0 +1,41 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
+import software.amazon.awssdk.services.sts.model.AssumeRoleResponse;
+
+/**
+ * {@link StsClient} recording the latency of every {@code AssumeRole} call, including the background
+ * credential refreshes of the assume-role credentials provider.
+ */
+class TimedStsClient implements StsClient {
+
+    private final StsClient delegate;
+
+    private final LatencyHistogram assumeRoleLatency;
+
+    TimedStsClient(StsClient delegate, LatencyHistogram assumeRoleLatency) {
+        this.delegate = delegate;
+        this.assumeRoleLatency = assumeRoleLatency;
+    }
+
+    @Override
+    public AssumeRoleResponse assumeRole(AssumeRoleRequest assumeRoleRequest) {
+        long start = System.nanoTime();
+        try {
+            return delegate.assumeRole(assumeRoleRequest);
+        } finally {
+            assumeRoleLatency.recordSince(start);
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return delegate.serviceName();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
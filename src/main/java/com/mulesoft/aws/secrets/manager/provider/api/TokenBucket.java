@@ -0,0 +1,42 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+/**
+ * Token bucket limiting the rate of remote calls. Tokens are handed out by reservation: a caller always gets
+ * its token but may have to wait for it, so waiting callers are served in arrival order at the configured rate.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long updatedAt = System.nanoTime();
+
+    /**
+     * @param tokensPerSecond refill rate
+     * @param capacity        tokens that can be taken at once after an idle period
+     */
+    TokenBucket(double tokensPerSecond, double capacity) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token bucket rate must be positive and hold at least one token");
+        }
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Takes a token.
+     *
+     * @return nanoseconds the caller must wait before using the token, {@code 0} when it can be used right away
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerNano);
+        updatedAt = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+}
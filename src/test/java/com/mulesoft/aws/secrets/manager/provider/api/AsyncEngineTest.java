@@ -0,0 +1,128 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerAsyncClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On the non-blocking client every secret of a provider is in flight at once without a thread of its own, and
+ * background refreshes need no refresh thread. The client talks HTTP to the local stand-in.
+ */
+public class AsyncEngineTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(300);
+
+    private static final int SECRET_COUNT = 16;
+
+    private LocalSecretsManagerServer server;
+
+    private SecretsManagerAsyncClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    private final List<String> secretNames = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalSecretsManagerServer();
+        for (int i = 0; i < SECRET_COUNT; i++) {
+            server.putSecretString("async/secret" + i, "{\"key\": \"before" + i + "\"}");
+            secretNames.add("async/secret" + i);
+        }
+        client = SecretsManagerAsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(server.getEndpoint())
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIAASYNCTEST", "async-test")))
+                .overrideConfiguration(o -> o.retryPolicy(RetryPolicy.none()))
+                .build();
+        // connects the client once, so that the timings below leave out its start
+        server.putSecretString("async/warm-up", "{}");
+        client.getSecretValue(request -> request.secretId("async/warm-up")).join();
+        server.resetCounters();
+    }
+
+    @After
+    public void tearDown() {
+        if (provider != null) {
+            provider.dispose();
+        }
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void secretsAreLoadedAllAtOnce() {
+        server.setLatency(LATENCY);
+
+        long start = System.nanoTime();
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, secretNames, SecretCacheSettings.disabled(),
+                null, new ProviderStatistics());
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Prefetch of " + SECRET_COUNT + " secrets took " + Duration.ofNanos(elapsed).toMillis() + " ms",
+                elapsed < LATENCY.multipliedBy(3).toNanos());
+        for (int i = 0; i < SECRET_COUNT; i++) {
+            assertEquals("before" + i, lookup("async/secret" + i + "/key"));
+        }
+        assertEquals(SECRET_COUNT, server.getSecretValueCalls());
+        assertFalse(providerThreadsRunning());
+    }
+
+    @Test
+    public void expiredSecretsAreRefreshedWithoutARefreshThread() throws Exception {
+        Duration ttl = Duration.ofMillis(200);
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, secretNames,
+                new SecretCacheSettings(ttl, Duration.ZERO), null, new ProviderStatistics());
+        assertEquals("before0", lookup("key"));
+
+        server.putSecretString("async/secret0", "{\"key\": \"after\"}");
+        Thread.sleep(ttl.toMillis() * 2);
+        // the expired value is served while the refresh is in flight
+        assertEquals("before0", lookup("key"));
+
+        assertTrue(eventually(() -> "after".equals(lookup("key"))));
+        assertFalse(providerThreadsRunning());
+    }
+
+    // the thread a provider on the blocking client starts for the background refreshes of its secrets
+    private boolean providerThreadsRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("aws-secrets-refresh-async/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@code SecretBinary} payloads are read in the configured format, and binary JSON secrets holding the base64 text
+ * of a JSON object, as the module used to require, are decoded once more.
+ */
+public class BinarySecretTest {
+
+    private static final String SECRET_NAME = "app/binary";
+
+    private static final String DOCUMENT = "{\"user\": \"app\", \"password\": \"secret\"}";
+
+    private final InMemorySecretsManagerClient client = new InMemorySecretsManagerClient();
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void jsonBytesAreReadAsIs() {
+        client.putSecretBinary(SECRET_NAME, DOCUMENT);
+        provider = createProvider(SecretFormat.JSON);
+
+        assertEquals("app", lookup("user"));
+        assertEquals("secret", lookup("password"));
+    }
+
+    @Test
+    public void base64TextOfAJsonObjectIsDecoded() {
+        client.putSecretBinary(SECRET_NAME, base64(DOCUMENT));
+        provider = createProvider(SecretFormat.JSON);
+
+        assertEquals("secret", lookup("password"));
+    }
+
+    @Test
+    public void base64TextOfANestedJsonObjectIsDecoded() {
+        client.putSecretBinary(SECRET_NAME, base64("\n {\"db\": \"{\\\"password\\\": \\\"x\\\"}\"}"));
+        provider = createProvider(SecretFormat.NESTED_JSON);
+
+        assertEquals("x", lookup("db.password"));
+    }
+
+    @Test
+    public void base64TextOfAnythingElseIsNotDecoded() {
+        // user=app is not a JSON object, so the payload is parsed as received, and fails
+        client.putSecretBinary(SECRET_NAME, base64("user=app"));
+        provider = createProvider(SecretFormat.JSON);
+
+        assertNull(lookup("user"));
+    }
+
+    @Test
+    public void otherFormatsAreNeverDecoded() {
+        String base64 = base64(DOCUMENT);
+        client.putSecretBinary(SECRET_NAME, base64);
+        provider = createProvider(SecretFormat.RAW);
+
+        assertEquals(base64, lookup(SecretFormat.RAW_VALUE_KEY));
+    }
+
+    private AWSSecretsManagerConfigurationPropertiesProvider createProvider(SecretFormat format) {
+        Map<String, SecretFormat> formats = Collections.singletonMap(SECRET_NAME, format);
+        return new AWSSecretsManagerConfigurationPropertiesProvider(
+                new SecretsManagerBackend(new SyncSecretFetcher(client), formats),
+                Collections.singletonList(SECRET_NAME), null, Collections.emptyList(), SecretCacheSettings.disabled(),
+                null, new ProviderStatistics());
+    }
+
+    private static String base64(String document) {
+        return Base64.getEncoder().encodeToString(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
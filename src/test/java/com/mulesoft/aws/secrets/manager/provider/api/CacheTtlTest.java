@@ -0,0 +1,119 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * With a TTL, lookups are answered from memory, expired values keep being served while they are refreshed in
+ * the background, and past the maximum staleness a lookup waits for AWS again.
+ */
+public class CacheTtlTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    private static final Duration TTL = Duration.ofMillis(200);
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, "{\"password\": \"before\"}");
+    }
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void lookupsWithinTheTtlAreAnsweredFromMemory() {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME,
+                new SecretCacheSettings(Duration.ofMinutes(5), Duration.ZERO));
+
+        assertEquals("before", lookup("password"));
+        client.putSecretString(SECRET_NAME, "{\"password\": \"after\"}");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("before", lookup("password"));
+            assertEquals("before", lookup(REAL_TIME_PREFIX + "password"));
+        }
+
+        assertEquals(1, client.getSecretValueCalls());
+        assertEquals(0, client.describeSecretCalls());
+    }
+
+    @Test
+    public void expiredValuesAreServedWhileRefreshing() throws Exception {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME,
+                new SecretCacheSettings(TTL, Duration.ZERO));
+        assertEquals("before", lookup("password"));
+
+        client.putSecretString(SECRET_NAME, "{\"password\": \"after\"}");
+        Thread.sleep(TTL.toMillis() * 2);
+        // the lookup that finds the values expired still returns them and hands the refresh to another thread
+        assertEquals("before", lookup("password"));
+
+        assertTrue(eventually(() -> "after".equals(lookup("password"))));
+        assertEquals(2, client.getSecretValueCalls());
+    }
+
+    @Test
+    public void failedRefreshKeepsServingTheCachedValues() throws Exception {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME,
+                new SecretCacheSettings(TTL, Duration.ZERO));
+        assertEquals("before", lookup("password"));
+
+        client.failNextCalls(Integer.MAX_VALUE, 503, "ServiceUnavailable");
+        Thread.sleep(TTL.toMillis() * 2);
+        assertEquals("before", lookup("password"));
+
+        SecretCacheStatistics statistics = provider.getCacheStatistics().get(SECRET_NAME);
+        assertTrue(eventually(() -> statistics.getRefreshFailures() > 0));
+        assertEquals("before", lookup("password"));
+    }
+
+    @Test
+    public void lookupsPastTheMaximumStalenessWaitForAws() throws Exception {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME,
+                new SecretCacheSettings(TTL, TTL.multipliedBy(2)));
+        assertEquals("before", lookup("password"));
+
+        client.failNextCalls(Integer.MAX_VALUE, 503, "ServiceUnavailable");
+        Thread.sleep(TTL.toMillis() * 3);
+        // the synchronous fetch fails, and failures resolve to no value
+        assertNull(lookup("password"));
+
+        client.failNextCalls(0, 503, "ServiceUnavailable");
+        client.putSecretString(SECRET_NAME, "{\"password\": \"after\"}");
+        assertEquals("after", lookup("password"));
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * A version that cannot be read never replaces the version held in memory, and a version that is replaced is
+ * zeroed without readers of it ever seeing the zeros.
+ */
+public class CachedSecretTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": \"before\"}");
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void malformedRotationKeepsPreviousSnapshot() {
+        assertEquals("before", lookup(REAL_TIME_PREFIX + "password"));
+        SecretSnapshot previous = provider.getSnapshot(SECRET_NAME);
+
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": ");
+        // the lookup fails, and failures resolve to no value
+        assertNull(lookup(REAL_TIME_PREFIX + "password"));
+
+        assertSame(previous, provider.getSnapshot(SECRET_NAME));
+        assertEquals("before", previous.get("password"));
+        assertEquals("app", lookup("user"));
+
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": \"after\"}");
+        assertEquals("after", lookup(REAL_TIME_PREFIX + "password"));
+    }
+
+    @Test
+    public void retiredSnapshotIsReadAgainFromCurrentOne() {
+        assertEquals("before", lookup("password"));
+        SecretSnapshot first = provider.getSnapshot(SECRET_NAME);
+        AtomicInteger runs = new AtomicInteger();
+
+        String credentials = provider.readSnapshot(SECRET_NAME, snapshot -> {
+            String user = snapshot.get("user");
+            if (runs.incrementAndGet() == 1) {
+                // a rotation lands between the two reads
+                client.putSecretString(SECRET_NAME, "{\"user\": \"app2\", \"password\": \"after\"}");
+                lookup(REAL_TIME_PREFIX + "password");
+            }
+            return user + ":" + snapshot.get("password");
+        });
+
+        assertEquals("app2:after", credentials);
+        assertEquals(2, runs.get());
+        try {
+            first.get("password");
+            fail("Expected the retired snapshot to be zeroed");
+        } catch (IllegalStateException expected) {
+            // its values were zeroed when the new version was published
+        }
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
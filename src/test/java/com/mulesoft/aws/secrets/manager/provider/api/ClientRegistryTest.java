@@ -0,0 +1,149 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Connections under the same key are built once and shared, while slow builds under other keys block no one.
+ */
+public class ClientRegistryTest {
+
+    private static final int THREADS = 16;
+
+    private ClientRegistry<Connection> registry;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        registry = new ClientRegistry<>();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void slowBuildDoesNotBlockOtherKeys() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        Future<ClientRegistry.Lease<Connection>> slow = executor.submit(() -> registry.acquire("slow", () -> {
+            building.countDown();
+            await(unblock);
+            return new Connection();
+        }));
+        assertTrue(building.await(5, TimeUnit.SECONDS));
+
+        Future<ClientRegistry.Lease<Connection>> fast = executor.submit(() -> registry.acquire("fast", Connection::new));
+        fast.get(1, TimeUnit.SECONDS).close();
+
+        unblock.countDown();
+        slow.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void concurrentAcquiresShareOneConnection() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ClientRegistry.Lease<Connection>>> acquires = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            acquires.add(executor.submit(() -> {
+                start.await();
+                return registry.acquire("shared", () -> {
+                    builds.incrementAndGet();
+                    // long enough for every thread to ask while the connection is being built
+                    sleep(200);
+                    return new Connection();
+                });
+            }));
+        }
+        start.countDown();
+        List<ClientRegistry.Lease<Connection>> leases = new ArrayList<>();
+        for (Future<ClientRegistry.Lease<Connection>> acquire : acquires) {
+            leases.add(acquire.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, builds.get());
+        Connection connection = leases.get(0).get();
+        for (ClientRegistry.Lease<Connection> lease : leases) {
+            assertSame(connection, lease.get());
+            lease.close();
+            // closing a lease again has no effect
+            lease.close();
+            assertEquals(lease == leases.get(leases.size() - 1) ? 1 : 0, connection.closed.get());
+        }
+        assertEquals(0, registry.size());
+
+        // a new deployment builds a new connection
+        try (ClientRegistry.Lease<Connection> lease = registry.acquire("shared", Connection::new)) {
+            assertTrue(lease.get() != connection);
+        }
+    }
+
+    @Test
+    public void failedBuildIsNotRegistered() {
+        try {
+            registry.acquire("failing", () -> {
+                throw new IllegalStateException("Injected failure");
+            });
+            fail("Expected the failure of the build to be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("Injected failure", e.getMessage());
+        }
+        assertEquals(0, registry.size());
+
+        // the key is free for the next build, whose connection is registered and closed as usual
+        Connection connection;
+        try (ClientRegistry.Lease<Connection> lease = registry.acquire("failing", Connection::new)) {
+            connection = lease.get();
+            assertEquals(1, registry.size());
+            assertEquals(0, connection.closed.get());
+        }
+        assertEquals(1, connection.closed.get());
+        assertEquals(0, registry.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Connection implements AutoCloseable {
+
+        private final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
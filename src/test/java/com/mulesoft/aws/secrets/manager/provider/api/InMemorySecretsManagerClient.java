@@ -0,0 +1,203 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretRequest;
+import software.amazon.awssdk.services.secretsmanager.model.DescribeSecretResponse;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+import software.amazon.awssdk.services.secretsmanager.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.secretsmanager.model.SecretsManagerException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SecretsManagerClient} answering {@code GetSecretValue} and {@code DescribeSecret} from memory, so that
+ * benchmarks measure the provider rather than the network. Every call is counted, and failures such as
+ * throttling or a fixed response delay can be injected to exercise the provider's retries, circuit breaker and,
+ * with one instance per region, its region routing and hedging.
+ */
+public class InMemorySecretsManagerClient implements SecretsManagerClient {
+
+    private final Map<String, StoredSecret> secrets = new ConcurrentHashMap<>();
+
+    private final LongAdder getSecretValueCalls = new LongAdder();
+
+    private final LongAdder describeSecretCalls = new LongAdder();
+
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+
+    private volatile int failureStatusCode;
+
+    private volatile String failureErrorCode;
+
+    private volatile long latencyNanos;
+
+    /**
+     * Stores a secret as {@code SecretString}.
+     */
+    public void putSecretString(String secretName, String payload) {
+        secrets.put(secretName, new StoredSecret(UUID.randomUUID().toString(), payload, null));
+    }
+
+    /**
+     * Stores a secret as {@code SecretBinary}, holding the UTF-8 bytes of the payload as the SDK returns them once
+     * it has decoded the base64 of the response.
+     */
+    public void putSecretBinary(String secretName, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        secrets.put(secretName, new StoredSecret(UUID.randomUUID().toString(), null, SdkBytes.fromByteArray(bytes)));
+    }
+
+    /**
+     * Gives the secret a new AWSCURRENT version with the same payload.
+     */
+    public void rotate(String secretName) {
+        StoredSecret current = secrets.get(secretName);
+        secrets.put(secretName, new StoredSecret(UUID.randomUUID().toString(), current.secretString, current.secretBinary));
+    }
+
+    /**
+     * Answers the next {@code count} calls with a {@code ThrottlingException}, as Secrets Manager does when the
+     * account exceeds its request quota.
+     */
+    public void throttleNextCalls(int count) {
+        failNextCalls(count, 400, "ThrottlingException");
+    }
+
+    /**
+     * Answers the next {@code count} calls with the given error, for example {@code 503} and
+     * {@code ServiceUnavailable}.
+     */
+    public void failNextCalls(int count, int statusCode, String errorCode) {
+        failureStatusCode = statusCode;
+        failureErrorCode = errorCode;
+        pendingFailures.set(count);
+    }
+
+    /**
+     * Delays every later answer, or failure, by {@code latency}.
+     */
+    public void setLatency(Duration latency) {
+        latencyNanos = latency.toNanos();
+    }
+
+    public long getSecretValueCalls() {
+        return getSecretValueCalls.sum();
+    }
+
+    public long describeSecretCalls() {
+        return describeSecretCalls.sum();
+    }
+
+    @Override
+    public GetSecretValueResponse getSecretValue(GetSecretValueRequest request) {
+        getSecretValueCalls.increment();
+        injectFailure();
+        StoredSecret secret = lookup(request.secretId());
+        return GetSecretValueResponse.builder()
+                .name(request.secretId())
+                .versionId(secret.versionId)
+                .versionStages(AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION)
+                .secretString(secret.secretString)
+                .secretBinary(secret.secretBinary)
+                .build();
+    }
+
+    @Override
+    public DescribeSecretResponse describeSecret(DescribeSecretRequest request) {
+        describeSecretCalls.increment();
+        injectFailure();
+        StoredSecret secret = lookup(request.secretId());
+        Map<String, List<String>> versions = new LinkedHashMap<>();
+        versions.put(secret.versionId,
+                Collections.singletonList(AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION));
+        return DescribeSecretResponse.builder()
+                .name(request.secretId())
+                .versionIdsToStages(versions)
+                .build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void injectFailure() {
+        if (latencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating latency", e);
+            }
+        }
+        if (pendingFailures.get() > 0 && pendingFailures.getAndDecrement() > 0) {
+            throw SecretsManagerException.builder()
+                    .message("Injected " + failureErrorCode)
+                    .statusCode(failureStatusCode)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .errorCode(failureErrorCode)
+                            .errorMessage("Injected " + failureErrorCode)
+                            .serviceName(SERVICE_NAME)
+                            .build())
+                    .build();
+        }
+    }
+
+    private StoredSecret lookup(String secretId) {
+        StoredSecret secret = secrets.get(secretId);
+        if (secret == null) {
+            throw ResourceNotFoundException.builder()
+                    .message("Secrets Manager can't find the specified secret.")
+                    .statusCode(400)
+                    .build();
+        }
+        return secret;
+    }
+
+    /**
+     * Builds a flat JSON secret with {@code keyCount} keys named {@code key0} to {@code key<keyCount-1>}.
+     */
+    public static String jsonPayload(int keyCount) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < keyCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"key").append(i).append("\":\"value-").append(i).append('-')
+                    .append(UUID.randomUUID()).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static final class StoredSecret {
+
+        private final String versionId;
+
+        private final String secretString;
+
+        private final SdkBytes secretBinary;
+
+        private StoredSecret(String versionId, String secretString, SdkBytes secretBinary) {
+            this.versionId = versionId;
+            this.secretString = secretString;
+            this.secretBinary = secretBinary;
+        }
+    }
+}
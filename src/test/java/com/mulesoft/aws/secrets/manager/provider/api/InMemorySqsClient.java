@@ -0,0 +1,124 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SqsClient} serving a single queue from memory, with long polling, so that the delivery of change events
+ * can be tested without SQS. Received messages are held until deleted; several instances may share a
+ * {@link Queue} to stand for the SQS clients of different connections.
+ */
+public class InMemorySqsClient implements SqsClient {
+
+    private final Queue queue;
+
+    private volatile boolean closed;
+
+    public InMemorySqsClient() {
+        this(new Queue());
+    }
+
+    public InMemorySqsClient(Queue queue) {
+        this.queue = queue;
+    }
+
+    public Queue getQueue() {
+        return queue;
+    }
+
+    @Override
+    public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+        queue.receiveCalls.increment();
+        List<Message> messages = new ArrayList<>();
+        try {
+            String body = queue.messages.poll(request.waitTimeSeconds() == null ? 0 : request.waitTimeSeconds(),
+                    TimeUnit.SECONDS);
+            while (body != null && !closed) {
+                Message message = Message.builder()
+                        .messageId(UUID.randomUUID().toString())
+                        .receiptHandle(UUID.randomUUID().toString())
+                        .body(body)
+                        .build();
+                queue.inFlight.put(message.receiptHandle(), body);
+                messages.add(message);
+                body = messages.size() < request.maxNumberOfMessages() ? queue.messages.poll() : null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Receive interrupted", e);
+        }
+        if (closed) {
+            // like a client closed during a long poll, the messages become visible again
+            for (Message message : messages) {
+                queue.messages.add(queue.inFlight.remove(message.receiptHandle()));
+            }
+            throw SdkClientException.create("Client is closed");
+        }
+        return ReceiveMessageResponse.builder().messages(messages).build();
+    }
+
+    @Override
+    public DeleteMessageBatchResponse deleteMessageBatch(DeleteMessageBatchRequest request) {
+        for (DeleteMessageBatchRequestEntry entry : request.entries()) {
+            if (queue.inFlight.remove(entry.receiptHandle()) != null) {
+                queue.deleted.increment();
+            }
+        }
+        return DeleteMessageBatchResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Makes the calls in progress and later calls fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Messages of the queue, with counters of the receive calls and of the deleted messages.
+     */
+    public static class Queue {
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+        private final LongAdder receiveCalls = new LongAdder();
+
+        private final LongAdder deleted = new LongAdder();
+
+        public void send(String body) {
+            messages.add(body);
+        }
+
+        public long receiveCalls() {
+            return receiveCalls.sum();
+        }
+
+        public long deletedMessages() {
+            return deleted.sum();
+        }
+    }
+}
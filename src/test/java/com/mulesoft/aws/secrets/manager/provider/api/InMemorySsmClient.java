@@ -0,0 +1,120 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.DescribeParametersRequest;
+import software.amazon.awssdk.services.ssm.model.DescribeParametersResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.ParameterMetadata;
+import software.amazon.awssdk.services.ssm.model.SsmException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SsmClient} answering {@code GetParametersByPath} and {@code DescribeParameters} from memory, one page
+ * per call, so that Parameter Store refreshes can be tested without AWS. Every call is counted.
+ */
+public class InMemorySsmClient implements SsmClient {
+
+    private final Map<String, Parameter> parameters = new ConcurrentSkipListMap<>();
+
+    private final LongAdder getParametersByPathCalls = new LongAdder();
+
+    private final LongAdder describeParametersCalls = new LongAdder();
+
+    private volatile boolean describeDenied;
+
+    /**
+     * Stores a parameter, incrementing its version.
+     */
+    public void putParameter(String name, String value) {
+        Parameter previous = parameters.get(name);
+        parameters.put(name, Parameter.builder()
+                .name(name)
+                .value(value)
+                .version(previous == null ? 1 : previous.version() + 1)
+                .build());
+    }
+
+    /**
+     * Answers {@code DescribeParameters} with an {@code AccessDeniedException}, as for a role without
+     * {@code ssm:DescribeParameters}.
+     */
+    public void denyDescribeParameters() {
+        describeDenied = true;
+    }
+
+    public long getParametersByPathCalls() {
+        return getParametersByPathCalls.sum();
+    }
+
+    public long describeParametersCalls() {
+        return describeParametersCalls.sum();
+    }
+
+    @Override
+    public GetParametersByPathResponse getParametersByPath(GetParametersByPathRequest request) {
+        getParametersByPathCalls.increment();
+        List<Parameter> page = new ArrayList<>();
+        String nextToken = page(request.path(), request.nextToken(), request.maxResults(), page);
+        return GetParametersByPathResponse.builder().parameters(page).nextToken(nextToken).build();
+    }
+
+    @Override
+    public DescribeParametersResponse describeParameters(DescribeParametersRequest request) {
+        describeParametersCalls.increment();
+        if (describeDenied) {
+            throw SsmException.builder()
+                    .message("Injected AccessDeniedException")
+                    .statusCode(400)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .errorCode("AccessDeniedException")
+                            .serviceName(SERVICE_NAME)
+                            .build())
+                    .build();
+        }
+        List<Parameter> page = new ArrayList<>();
+        String nextToken = page(request.parameterFilters().get(0).values().get(0), request.nextToken(),
+                request.maxResults(), page);
+        List<ParameterMetadata> metadata = new ArrayList<>();
+        for (Parameter parameter : page) {
+            metadata.add(ParameterMetadata.builder().name(parameter.name()).version(parameter.version()).build());
+        }
+        return DescribeParametersResponse.builder().parameters(metadata).nextToken(nextToken).build();
+    }
+
+    // the token is the index of the first parameter of the page
+    private String page(String path, String token, Integer maxResults, List<Parameter> page) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        int start = token == null ? 0 : Integer.parseInt(token);
+        int index = 0;
+        for (Parameter parameter : parameters.values()) {
+            if (!parameter.name().startsWith(prefix)) {
+                continue;
+            }
+            if (index++ < start) {
+                continue;
+            }
+            if (page.size() == maxResults) {
+                return String.valueOf(start + page.size());
+            }
+            page.add(parameter);
+        }
+        return null;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
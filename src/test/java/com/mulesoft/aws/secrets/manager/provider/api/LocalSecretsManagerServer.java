@@ -0,0 +1,492 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP stand-in for Secrets Manager and STS, so that the provider can be tested and measured end to end, SDK
+ * clients and HTTP connection pools included, without an AWS account. Point {@code customServiceEndPoint} at
+ * {@link #getEndpoint()}.
+ * <p>
+ * Answers the Secrets Manager {@code GetSecretValue} and {@code DescribeSecret} calls of the JSON 1.1 protocol,
+ * keeping the AWSCURRENT and AWSPREVIOUS versions of every secret, and the STS {@code AssumeRole} call of the query
+ * protocol with made-up session credentials. Requests are not authenticated. Every call is counted, and a fixed
+ * latency, a request quota answered with {@code ThrottlingException}, injected errors and periodic rotation can be
+ * configured while the server runs.
+ */
+public class LocalSecretsManagerServer implements AutoCloseable {
+
+    private static final String SECRETS_MANAGER_TARGET_PREFIX = "secretsmanager.";
+
+    private static final String AWS_PREVIOUS_VERSION = "AWSPREVIOUS";
+
+    private static final String STS_NAMESPACE = "https://sts.amazonaws.com/doc/2011-06-15/";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final ExecutorService handlerExecutor;
+
+    private final ScheduledExecutorService rotationScheduler;
+
+    private final Map<String, StoredSecret> secrets = new ConcurrentHashMap<>();
+
+    private final LongAdder getSecretValueCalls = new LongAdder();
+
+    private final LongAdder describeSecretCalls = new LongAdder();
+
+    private final LongAdder assumeRoleCalls = new LongAdder();
+
+    private final LongAdder throttledCalls = new LongAdder();
+
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+
+    private volatile int failureStatusCode;
+
+    private volatile String failureErrorCode;
+
+    private volatile long latencyNanos;
+
+    private volatile int maxRequestsPerSecond;
+
+    private volatile Duration credentialLifetime;
+
+    // start of the current one-second quota window, in nanoseconds, and the calls made in it
+    private final AtomicLong quotaWindowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger quotaWindowCalls = new AtomicInteger();
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     */
+    public LocalSecretsManagerServer() throws IOException {
+        this(0);
+    }
+
+    public LocalSecretsManagerServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        handlerExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-secrets-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rotationScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-secrets-manager-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(handlerExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the {@code http://} URL of the server, usable as {@code customServiceEndPoint} or as the endpoint
+     * override of an SDK client
+     */
+    public URI getEndpoint() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    /**
+     * Stores a secret as {@code SecretString}, as a new AWSCURRENT version.
+     */
+    public void putSecretString(String secretName, String payload) {
+        secrets.compute(secretName, (name, current) -> new StoredSecret(name, payload, null, current));
+    }
+
+    /**
+     * Stores a secret as {@code SecretBinary}, holding the UTF-8 bytes of the payload, as a new AWSCURRENT version.
+     */
+    public void putSecretBinary(String secretName, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        secrets.compute(secretName, (name, current) -> new StoredSecret(name, null, bytes, current));
+    }
+
+    /**
+     * Gives the secret a new AWSCURRENT version with the same payload; the former one becomes AWSPREVIOUS.
+     */
+    public void rotate(String secretName) {
+        secrets.computeIfPresent(secretName,
+                (name, current) -> new StoredSecret(name, current.secretString, current.secretBinary, current));
+    }
+
+    /**
+     * Rotates every secret once per {@code period}, from now until the server is closed.
+     */
+    public void rotateEvery(Duration period) {
+        rotationScheduler.scheduleAtFixedRate(() -> {
+            for (String secretName : new ArrayList<>(secrets.keySet())) {
+                rotate(secretName);
+            }
+        }, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Delays every later answer, or failure, by {@code latency}.
+     */
+    public void setLatency(Duration latency) {
+        latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Answers the calls beyond {@code maxRequestsPerSecond} in each second with a {@code ThrottlingException}, as
+     * Secrets Manager does when the account exceeds its request quota. {@code 0} removes the quota.
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Issues session credentials that expire after {@code lifetime} rather than after the requested duration, for
+     * example shorter than the SDK's refresh margin so that every use of the credentials renews them. {@code null}
+     * restores the requested duration.
+     */
+    public void setCredentialLifetime(Duration lifetime) {
+        credentialLifetime = lifetime;
+    }
+
+    /**
+     * Answers the next {@code count} calls with a {@code ThrottlingException}.
+     */
+    public void throttleNextCalls(int count) {
+        failNextCalls(count, 400, "ThrottlingException");
+    }
+
+    /**
+     * Answers the next {@code count} calls with the given error, for example {@code 503} and
+     * {@code ServiceUnavailable}.
+     */
+    public void failNextCalls(int count, int statusCode, String errorCode) {
+        failureStatusCode = statusCode;
+        failureErrorCode = errorCode;
+        pendingFailures.set(count);
+    }
+
+    public long getSecretValueCalls() {
+        return getSecretValueCalls.sum();
+    }
+
+    public long describeSecretCalls() {
+        return describeSecretCalls.sum();
+    }
+
+    public long assumeRoleCalls() {
+        return assumeRoleCalls.sum();
+    }
+
+    /**
+     * @return the calls answered with a {@code ThrottlingException}, injected or beyond the request quota
+     */
+    public long throttledCalls() {
+        return throttledCalls.sum();
+    }
+
+    public void resetCounters() {
+        getSecretValueCalls.reset();
+        describeSecretCalls.reset();
+        assumeRoleCalls.reset();
+        throttledCalls.reset();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        rotationScheduler.shutdownNow();
+        handlerExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = readBody(exchange.getRequestBody());
+            String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+            if (target != null && target.startsWith(SECRETS_MANAGER_TARGET_PREFIX)) {
+                handleSecretsManager(exchange, target.substring(SECRETS_MANAGER_TARGET_PREFIX.length()), body);
+            } else {
+                handleSts(exchange, parseForm(new String(body, StandardCharsets.UTF_8)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSecretsManager(HttpExchange exchange, String operation, byte[] body)
+            throws IOException, InterruptedException {
+        JsonNode request = MAPPER.readTree(body);
+        switch (operation) {
+            case "GetSecretValue":
+                getSecretValueCalls.increment();
+                break;
+            case "DescribeSecret":
+                describeSecretCalls.increment();
+                break;
+            default:
+                sendJsonError(exchange, 400, "UnknownOperationException", "Operation " + operation + " is not supported");
+                return;
+        }
+        if (rejectCall(exchange, false)) {
+            return;
+        }
+        StoredSecret secret = secrets.get(request.path("SecretId").asText());
+        if (secret == null) {
+            sendJsonError(exchange, 400, "ResourceNotFoundException", "Secrets Manager can't find the specified secret.");
+            return;
+        }
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("ARN", secret.arn);
+        response.put("Name", secret.name);
+        if (operation.equals("DescribeSecret")) {
+            ObjectNode versions = response.putObject("VersionIdsToStages");
+            versions.putArray(secret.versionId).add(AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION);
+            if (secret.previous != null) {
+                versions.putArray(secret.previous.versionId).add(AWS_PREVIOUS_VERSION);
+            }
+            response.put("LastChangedDate", secret.createdDate.getEpochSecond());
+        } else {
+            StoredSecret version = secret.findVersion(request.path("VersionId").asText(null),
+                    request.path("VersionStage").asText(AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION));
+            if (version == null) {
+                sendJsonError(exchange, 400, "ResourceNotFoundException",
+                        "Secrets Manager can't find the specified secret value for the requested version.");
+                return;
+            }
+            response.put("VersionId", version.versionId);
+            response.putArray("VersionStages").add(version == secret
+                    ? AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION : AWS_PREVIOUS_VERSION);
+            if (version.secretString != null) {
+                response.put("SecretString", version.secretString);
+            } else {
+                response.put("SecretBinary", version.secretBinary);
+            }
+            response.put("CreatedDate", version.createdDate.getEpochSecond());
+        }
+        send(exchange, 200, "application/x-amz-json-1.1", MAPPER.writeValueAsBytes(response));
+    }
+
+    private void handleSts(HttpExchange exchange, Map<String, String> form) throws IOException, InterruptedException {
+        if (!"AssumeRole".equals(form.get("Action"))) {
+            sendXmlError(exchange, 400, "InvalidAction", "Action " + form.get("Action") + " is not supported");
+            return;
+        }
+        assumeRoleCalls.increment();
+        if (rejectCall(exchange, true)) {
+            return;
+        }
+        String roleArn = form.get("RoleArn");
+        String sessionName = form.get("RoleSessionName");
+        Duration lifetime = credentialLifetime;
+        if (lifetime == null) {
+            lifetime = Duration.ofSeconds(form.containsKey("DurationSeconds") ? Long.parseLong(form.get("DurationSeconds")) : 3600);
+        }
+        String xml = "<AssumeRoleResponse xmlns=\"" + STS_NAMESPACE + "\">"
+                + "<AssumeRoleResult>"
+                + "<Credentials>"
+                + "<AccessKeyId>ASIA" + randomToken(16) + "</AccessKeyId>"
+                + "<SecretAccessKey>" + randomToken(40) + "</SecretAccessKey>"
+                + "<SessionToken>" + randomToken(64) + "</SessionToken>"
+                + "<Expiration>" + Instant.now().plus(lifetime) + "</Expiration>"
+                + "</Credentials>"
+                + "<AssumedRoleUser>"
+                + "<AssumedRoleId>AROA" + randomToken(16) + ":" + escapeXml(sessionName) + "</AssumedRoleId>"
+                + "<Arn>" + escapeXml(roleArn) + "</Arn>"
+                + "</AssumedRoleUser>"
+                + "</AssumeRoleResult>"
+                + "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata>"
+                + "</AssumeRoleResponse>";
+        send(exchange, 200, "text/xml", xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Applies the latency, then answers the call with an injected error or a throttling error when the request quota
+     * is exceeded.
+     *
+     * @return whether the call was answered
+     */
+    private boolean rejectCall(HttpExchange exchange, boolean xml) throws IOException, InterruptedException {
+        if (latencyNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        }
+        String errorCode = null;
+        int statusCode = 400;
+        if (pendingFailures.get() > 0 && pendingFailures.getAndDecrement() > 0) {
+            errorCode = failureErrorCode;
+            statusCode = failureStatusCode;
+        } else if (overQuota()) {
+            errorCode = "ThrottlingException";
+        }
+        if (errorCode == null) {
+            return false;
+        }
+        if (errorCode.equals("ThrottlingException")) {
+            throttledCalls.increment();
+        }
+        if (xml) {
+            sendXmlError(exchange, statusCode, errorCode, "Injected " + errorCode);
+        } else {
+            sendJsonError(exchange, statusCode, errorCode, "Injected " + errorCode);
+        }
+        return true;
+    }
+
+    private boolean overQuota() {
+        int quota = maxRequestsPerSecond;
+        if (quota <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long windowStart = quotaWindowStart.get();
+        if (now - windowStart >= TimeUnit.SECONDS.toNanos(1) && quotaWindowStart.compareAndSet(windowStart, now)) {
+            quotaWindowCalls.set(0);
+        }
+        return quotaWindowCalls.incrementAndGet() > quota;
+    }
+
+    private static void sendJsonError(HttpExchange exchange, int statusCode, String errorCode, String message)
+            throws IOException {
+        ObjectNode error = MAPPER.createObjectNode();
+        error.put("__type", errorCode);
+        error.put("message", message);
+        exchange.getResponseHeaders().set("x-amzn-ErrorType", errorCode);
+        send(exchange, statusCode, "application/x-amz-json-1.1", MAPPER.writeValueAsBytes(error));
+    }
+
+    private static void sendXmlError(HttpExchange exchange, int statusCode, String errorCode, String message)
+            throws IOException {
+        String xml = "<ErrorResponse xmlns=\"" + STS_NAMESPACE + "\">"
+                + "<Error><Type>Sender</Type><Code>" + escapeXml(errorCode) + "</Code>"
+                + "<Message>" + escapeXml(message) + "</Message></Error>"
+                + "<RequestId>" + UUID.randomUUID() + "</RequestId>"
+                + "</ErrorResponse>";
+        send(exchange, statusCode, "text/xml", xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("x-amzn-RequestId", UUID.randomUUID().toString());
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> parseForm(String form) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return values;
+    }
+
+    private static String randomToken(int length) {
+        StringBuilder token = new StringBuilder(length);
+        while (token.length() < length) {
+            token.append(UUID.randomUUID().toString().replace("-", "").toUpperCase());
+        }
+        return token.substring(0, length);
+    }
+
+    private static String escapeXml(String value) {
+        return value == null ? "" : value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static final class StoredSecret {
+
+        private final String name;
+
+        private final String arn;
+
+        private final String versionId;
+
+        private final Instant createdDate;
+
+        private final String secretString;
+
+        private final byte[] secretBinary;
+
+        // the AWSPREVIOUS version, which does not keep its own previous one
+        private final StoredSecret previous;
+
+        private StoredSecret(String name, String secretString, byte[] secretBinary, StoredSecret current) {
+            this.name = name;
+            this.arn = current != null ? current.arn
+                    : "arn:aws:secretsmanager:local:000000000000:secret:" + name + "-" + randomToken(6);
+            this.versionId = UUID.randomUUID().toString();
+            this.createdDate = Instant.now();
+            this.secretString = secretString;
+            this.secretBinary = secretBinary;
+            this.previous = current == null ? null : current.withoutPrevious();
+        }
+
+        private StoredSecret(StoredSecret version) {
+            this.name = version.name;
+            this.arn = version.arn;
+            this.versionId = version.versionId;
+            this.createdDate = version.createdDate;
+            this.secretString = version.secretString;
+            this.secretBinary = version.secretBinary;
+            this.previous = null;
+        }
+
+        private StoredSecret withoutPrevious() {
+            return previous == null ? this : new StoredSecret(this);
+        }
+
+        private StoredSecret findVersion(String versionId, String versionStage) {
+            if (versionId != null) {
+                if (versionId.equals(this.versionId)) {
+                    return this;
+                }
+                return previous != null && versionId.equals(previous.versionId) ? previous : null;
+            }
+            if (AWSSecretsManagerConfigurationPropertiesConstants.AWS_CURRENT_VERSION.equals(versionStage)) {
+                return this;
+            }
+            return AWS_PREVIOUS_VERSION.equals(versionStage) ? previous : null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.mule.runtime.api.component.ComponentIdentifier;
+import org.mule.runtime.api.util.Pair;
+import org.mule.runtime.config.api.dsl.model.ConfigurationParameters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.EXTENSION_NAMESPACE;
+
+/**
+ * Configuration of a {@code custom-properties-provider:config} element, as the factory receives it from Mule:
+ * one complex parameter per parameter group, holding its string parameters.
+ */
+public class MapConfigurationParameters implements ConfigurationParameters {
+
+    private final Map<String, Map<String, String>> groups;
+
+    private final Map<String, String> values;
+
+    /**
+     * @param groups the string parameters of every parameter group, by group name
+     */
+    public MapConfigurationParameters(Map<String, Map<String, String>> groups) {
+        this(groups, Collections.emptyMap());
+    }
+
+    private MapConfigurationParameters(Map<String, Map<String, String>> groups, Map<String, String> values) {
+        this.groups = groups;
+        this.values = values;
+    }
+
+    @Override
+    public String getStringParameter(String parameterName) {
+        return values.get(parameterName);
+    }
+
+    @Override
+    public List<ConfigurationParameters> getComplexConfigurationParameter(ComponentIdentifier componentIdentifier) {
+        Map<String, String> group = groups.get(componentIdentifier.getName());
+        return group == null ? Collections.emptyList()
+                : Collections.singletonList(new MapConfigurationParameters(Collections.emptyMap(), group));
+    }
+
+    @Override
+    public List<Pair<ComponentIdentifier, ConfigurationParameters>> getComplexConfigurationParameters() {
+        List<Pair<ComponentIdentifier, ConfigurationParameters>> parameters = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> group : groups.entrySet()) {
+            parameters.add(new Pair<>(ComponentIdentifier.builder().namespace(EXTENSION_NAMESPACE)
+                    .name(group.getKey()).build(), new MapConfigurationParameters(Collections.emptyMap(), group.getValue())));
+        }
+        return parameters;
+    }
+}
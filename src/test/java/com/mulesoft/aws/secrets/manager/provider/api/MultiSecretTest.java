@@ -0,0 +1,76 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Keys are routed to the secret named in front of them, and the secrets of a provider are fetched in parallel
+ * before it is returned.
+ */
+public class MultiSecretTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(300);
+
+    private final InMemorySecretsManagerClient client = new InMemorySecretsManagerClient();
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void keysAreRoutedToTheMostSpecificSecret() {
+        client.putSecretString("app", "{\"user\": \"app-user\", \"db/password\": \"in-app\"}");
+        client.putSecretString("app/db", "{\"password\": \"in-app-db\"}");
+        client.putSecretString("shared", "{\"token\": \"t\"}");
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, Arrays.asList("app", "app/db", "shared"),
+                SecretCacheSettings.disabled());
+
+        assertEquals("app-user", lookup("user"));
+        assertEquals("app-user", lookup("app/user"));
+        assertEquals("in-app-db", lookup("app/db/password"));
+        assertEquals("in-app-db", lookup(REAL_TIME_PREFIX + "app/db/password"));
+        assertEquals("t", lookup("shared/token"));
+        // a key whose prefix names no configured secret belongs to the default secret
+        assertEquals("in-app", lookup("db/password"));
+        assertNull(lookup("other/token"));
+    }
+
+    @Test
+    public void secretsArePrefetchedInParallel() {
+        for (int i = 0; i < 4; i++) {
+            client.putSecretString("secret" + i, "{\"key\": \"value" + i + "\"}");
+        }
+        client.setLatency(LATENCY);
+
+        long start = System.nanoTime();
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client,
+                Arrays.asList("secret0", "secret1", "secret2", "secret3"), SecretCacheSettings.disabled());
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(4, client.getSecretValueCalls());
+        assertTrue("Prefetch took " + Duration.ofNanos(elapsed).toMillis() + " ms",
+                elapsed < LATENCY.multipliedBy(3).toNanos());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("value" + i, lookup("secret" + i + "/key"));
+        }
+        assertEquals(4, client.getSecretValueCalls());
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Keys missing from the loaded version are answered from its key set, without remote calls, until the negative
+ * cache TTL asks for the version to be checked again.
+ */
+public class NegativeCacheTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": \"secret\"}");
+    }
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void repeatedUnknownKeysMakeNoRemoteCalls() {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        assertEquals("app", lookup("user"));
+
+        for (int i = 0; i < 100; i++) {
+            assertNull(lookup("passwrod"));
+            assertNull(lookup("missing" + i));
+        }
+
+        assertEquals(1, client.getSecretValueCalls());
+        assertEquals(0, client.describeSecretCalls());
+        assertEquals(200, provider.getCacheStatistics().get(SECRET_NAME).getNegativeCacheHits());
+    }
+
+    @Test
+    public void zeroTtlChecksTheVersionOnEveryMiss() {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME,
+                new SecretCacheSettings(Duration.ZERO, Duration.ZERO, Duration.ZERO));
+        assertEquals("app", lookup("user"));
+
+        for (int i = 0; i < 10; i++) {
+            assertNull(lookup("passwrod"));
+        }
+
+        assertEquals(1, client.getSecretValueCalls());
+        assertEquals(10, client.describeSecretCalls());
+        assertEquals(0, provider.getCacheStatistics().get(SECRET_NAME).getNegativeCacheHits());
+    }
+
+    @Test
+    public void newVersionExposesAddedKeys() {
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        assertNull(lookup("port"));
+
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": \"secret\", \"port\": \"5432\"}");
+        assertNull(lookup("port"));
+        // a real-time lookup loads the new version, whose key set then answers
+        assertEquals("app", lookup(REAL_TIME_PREFIX + "user"));
+
+        assertEquals("5432", lookup("port"));
+        assertEquals(2, client.getSecretValueCalls());
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The version of a parameter path is checked without reading its values, and changes with any of its parameters.
+ */
+public class ParameterStoreBackendTest {
+
+    private static final String PATH = "/app/prod";
+
+    private InMemorySsmClient client;
+
+    private ParameterStoreBackend backend;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySsmClient();
+        // more parameters than a page of either call holds
+        for (int i = 0; i < 60; i++) {
+            client.putParameter(PATH + "/key" + i, "value" + i);
+        }
+        client.putParameter("/app/test/key0", "other");
+        backend = new ParameterStoreBackend(client);
+    }
+
+    @Test
+    public void currentVersionMatchesDownloadedVersion() {
+        String downloaded = backend.getSecret(PATH).join().getVersionId();
+
+        assertEquals(downloaded, backend.getCurrentVersion(PATH).join());
+        assertEquals(2, client.describeParametersCalls());
+    }
+
+    @Test
+    public void currentVersionChangesWithParameters() {
+        String initial = backend.getCurrentVersion(PATH).join();
+
+        client.putParameter(PATH + "/key42", "rotated");
+        String updated = backend.getCurrentVersion(PATH).join();
+        client.putParameter(PATH + "/db/password", "added");
+        String added = backend.getCurrentVersion(PATH).join();
+
+        assertNotEquals(initial, updated);
+        assertNotEquals(updated, added);
+        assertEquals(added, backend.getSecret(PATH).join().getVersionId());
+        client.putParameter("/app/test/key0", "unrelated");
+        assertEquals(added, backend.getCurrentVersion(PATH).join());
+    }
+
+    @Test
+    public void deniedVersionCheckFallsBackToDownloads() {
+        client.denyDescribeParameters();
+
+        assertNull(backend.getCurrentVersion(PATH).join());
+        assertNull(backend.getCurrentVersion(PATH).join());
+        assertEquals(1, client.describeParametersCalls());
+    }
+}
@@ -0,0 +1,178 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The placeholders of the configuration resources are found ahead of time, the secrets they need are loaded in one
+ * parallel pass, and every key that cannot be resolved is reported at once.
+ */
+public class PreloadTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(300);
+
+    private static final String CONFIGURATION = "<mule>\n"
+            + "  <db:config user=\"${aws-secrets::user}\" password=\"${aws-secrets::app/db/password}\"/>\n"
+            + "  <http:request-config token=\"${aws-secrets::real-time::app/api/token}\"/>\n"
+            + "  <set-variable value=\"${ aws-secrets::user }\"/>\n"
+            + "  <set-variable value=\"${aws-secrets::${env}.password}\"/>\n"
+            + "  <set-variable value=\"${aws-secrets::#[vars.key]}\"/>\n"
+            + "  <set-variable value=\"${secure::user}\"/>\n"
+            + "</mule>\n";
+
+    private final InMemorySecretsManagerClient client = new InMemorySecretsManagerClient();
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @After
+    public void tearDown() {
+        if (provider != null) {
+            provider.dispose();
+        }
+    }
+
+    @Test
+    public void placeholderKeysAreFoundInAConfigurationResource() {
+        assertEquals(Arrays.asList("user", "app/db/password", "real-time::app/api/token"),
+                Arrays.asList(AWSSecretsManagerConfigurationPropertiesProvider.findPlaceholderKeys(CONFIGURATION)
+                        .toArray(new String[0])));
+    }
+
+    @Test
+    public void neededSecretsAreLoadedInOneParallelPass() {
+        client.putSecretString("app/config", "{\"user\": \"app\"}");
+        client.putSecretString("app/db", "{\"password\": \"secret\"}");
+        client.putSecretString("app/api", "{\"token\": \"t0ken\"}");
+        // the prefetch of the constructor fails, so that the secrets are still to be loaded by the preload
+        client.failNextCalls(3, 500, "InternalServiceError");
+        provider = createProvider(Arrays.asList("app/config", "app/db", "app/api"));
+        client.setLatency(LATENCY);
+        long callsBefore = client.getSecretValueCalls();
+
+        long start = System.nanoTime();
+        provider.preload(AWSSecretsManagerConfigurationPropertiesProvider.findPlaceholderKeys(CONFIGURATION));
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Preload of 3 secrets took " + Duration.ofNanos(elapsed).toMillis() + " ms",
+                elapsed < LATENCY.multipliedBy(2).toNanos());
+        assertEquals(3, client.getSecretValueCalls() - callsBefore);
+        assertEquals("app", lookup("user"));
+        assertEquals("secret", lookup("app/db/password"));
+        assertEquals("t0ken", lookup("app/api/token"));
+        assertEquals(3, client.getSecretValueCalls() - callsBefore);
+    }
+
+    @Test
+    public void everyUnresolvableKeyIsReportedAtOnce() {
+        client.putSecretString("app/config", "{\"user\": \"app\"}");
+        client.putSecretString("app/db", "{\"password\": \"secret\"}");
+        provider = createProvider(Arrays.asList("app/config", "app/db", "app/gone"));
+
+        try {
+            provider.preload(Arrays.asList("user", "missing", "app/db/password", "real-time::app/db/port",
+                    "app/gone/token"));
+            fail("Preload should report the keys that cannot be resolved");
+        } catch (RuntimeException expected) {
+            String message = expected.getMessage();
+            assertTrue(message, message.startsWith("3 AWS SM placeholders cannot be resolved: "));
+            assertTrue(message, message.contains("key missing is missing from secret app/config"));
+            assertTrue(message, message.contains("key port is missing from secret app/db"));
+            assertTrue(message, message.contains("secret app/gone could not be loaded ("));
+            assertTrue(message, message.contains("needed for keys [token]"));
+        }
+    }
+
+    @Test
+    public void keysWithoutAConfiguredSecretAreReported() {
+        InMemorySsmClient ssmClient = new InMemorySsmClient();
+        ssmClient.putParameter("/app/prod/user", "app");
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(
+                new SecretsManagerBackend(new SyncSecretFetcher(client)), Collections.emptyList(),
+                new ParameterStoreBackend(ssmClient), Collections.singletonList("/app/prod"),
+                SecretCacheSettings.disabled(), null, new ProviderStatistics());
+
+        try {
+            provider.preload(Collections.singletonList("user"));
+            fail("Preload should report a key no secret is configured for");
+        } catch (RuntimeException expected) {
+            assertEquals("1 AWS SM placeholders cannot be resolved: key user does not name a configured secret",
+                    expected.getMessage());
+        }
+    }
+
+    @Test
+    public void factoryFailsOnAMissingKeyOfAPreloadResource() throws Exception {
+        try (LocalSecretsManagerServer server = new LocalSecretsManagerServer()) {
+            server.putSecretString("preload/config", "{\"user\": \"app\"}");
+            Map<String, String> resources = new HashMap<>();
+            resources.put("config.xml", "<db:config user=\"${aws-secrets::user}\" password=\"${aws-secrets::password}\"/>");
+
+            try {
+                createFactoryProvider(server, "config.xml", resources);
+                fail("The provider should not be created with a placeholder that cannot be resolved");
+            } catch (RuntimeException expected) {
+                assertEquals("1 AWS SM placeholders cannot be resolved: key password is missing from secret preload/config",
+                        expected.getMessage());
+            }
+
+            server.putSecretString("preload/config", "{\"user\": \"app\", \"password\": \"secret\"}");
+            provider = createFactoryProvider(server, "config.xml", resources);
+            assertEquals("secret", lookup("password"));
+
+            try {
+                createFactoryProvider(server, "config.xml, missing.yaml", resources);
+                fail("The provider should not be created with a preload resource that cannot be read");
+            } catch (RuntimeException expected) {
+                assertEquals("Preload resource missing.yaml cannot be read -- resource not found", expected.getMessage());
+            }
+        }
+    }
+
+    private AWSSecretsManagerConfigurationPropertiesProvider createProvider(List<String> secretNames) {
+        return new AWSSecretsManagerConfigurationPropertiesProvider(
+                new SecretsManagerBackend(new SyncSecretFetcher(client)), secretNames, null, Collections.emptyList(),
+                SecretCacheSettings.disabled(), null, new ProviderStatistics());
+    }
+
+    private static AWSSecretsManagerConfigurationPropertiesProvider createFactoryProvider(
+            LocalSecretsManagerServer server, String preloadResources, Map<String, String> resources) {
+        Map<String, String> secretsManager = new HashMap<>();
+        secretsManager.put(SECRET_NAME, "preload/config");
+        secretsManager.put(PRELOAD_RESOURCES, preloadResources);
+        Map<String, String> basicConnection = new HashMap<>();
+        basicConnection.put(AWS_REGION, "us-east-1");
+        basicConnection.put(AWS_ACCESS_KEY, "AKIAPRELOADTEST");
+        basicConnection.put(AWS_SECRET_KEY, "preload-test");
+        Map<String, String> advancedConnection = new HashMap<>();
+        advancedConnection.put(AWS_CUSTOM_SERVICE_ENDPOINT, server.getEndpoint().toString());
+        Map<String, Map<String, String>> groups = new LinkedHashMap<>();
+        groups.put(SECRETS_MANAGER_PARAMETER_GROUP_NAME, secretsManager);
+        groups.put(AWS_BASIC_CONNECTION_PARAMETER_GROUP_NAME, basicConnection);
+        groups.put(AWS_ADVANCED_CONNECTION_PARAMETER_GROUP_NAME, advancedConnection);
+
+        return (AWSSecretsManagerConfigurationPropertiesProvider) new AWSSecretsManagerConfigurationPropertiesProviderFactory()
+                .createProvider(new MapConfigurationParameters(groups), uri -> resources.containsKey(uri)
+                        ? new ByteArrayInputStream(resources.get(uri).getBytes(StandardCharsets.UTF_8)) : null);
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Calls go to the fastest region, fail over when a region is impaired and are hedged to the next region when the
+ * chosen one is slower than usual. Each region is an in-memory client with a latency of its own.
+ */
+public class RegionalSecretFetcherTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    private static final String PAYLOAD = InMemorySecretsManagerClient.jsonPayload(1);
+
+    private InMemorySecretsManagerClient primary;
+
+    private InMemorySecretsManagerClient replica;
+
+    private RegionalSecretFetcher fetcher;
+
+    @Before
+    public void setUp() {
+        primary = new InMemorySecretsManagerClient();
+        replica = new InMemorySecretsManagerClient();
+        primary.putSecretString(SECRET_NAME, PAYLOAD);
+        replica.putSecretString(SECRET_NAME, PAYLOAD);
+    }
+
+    @After
+    public void tearDown() {
+        if (fetcher != null) {
+            fetcher.close();
+        }
+    }
+
+    @Test
+    public void callsGoToFastestRegion() {
+        fetcher = createFetcher(0);
+        primary.setLatency(Duration.ofMillis(50));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(PAYLOAD, getSecretValue().secretString());
+        }
+
+        // the primary is tried first, the replica is measured next and is faster from then on
+        assertEquals(1, primary.getSecretValueCalls());
+        assertEquals(19, replica.getSecretValueCalls());
+        assertEquals("replica", fetcher.rankRegions().get(0).getName());
+    }
+
+    @Test
+    public void impairedRegionFailsOver() {
+        fetcher = createFetcher(0);
+        primary.failNextCalls(1, 503, "ServiceUnavailable");
+
+        assertEquals(PAYLOAD, getSecretValue().secretString());
+
+        assertEquals(1, primary.getSecretValueCalls());
+        assertEquals(1, replica.getSecretValueCalls());
+    }
+
+    @Test
+    public void allRegionsImpairedFails() {
+        fetcher = createFetcher(0);
+        primary.failNextCalls(1, 503, "ServiceUnavailable");
+        replica.failNextCalls(1, 503, "ServiceUnavailable");
+
+        try {
+            getSecretValue();
+            fail("Expected the call to fail in every region");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause().getMessage().contains("ServiceUnavailable"));
+        }
+        assertEquals(1, primary.getSecretValueCalls());
+        assertEquals(1, replica.getSecretValueCalls());
+    }
+
+    @Test
+    public void answeredErrorsDoNotFailOver() {
+        fetcher = createFetcher(0);
+        primary.failNextCalls(1, 400, "AccessDeniedException");
+
+        try {
+            getSecretValue();
+            fail("Expected the denied access to be passed through");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause().getMessage().contains("AccessDeniedException"));
+        }
+        assertEquals(0, replica.getSecretValueCalls());
+    }
+
+    @Test
+    public void slowRegionIsHedged() throws InterruptedException {
+        fetcher = createFetcher(50);
+        // the replica is measured as the slower region, so that the primary gets enough samples to hedge on
+        replica.setLatency(Duration.ofMillis(20));
+        for (int i = 0; i < 12; i++) {
+            getSecretValue();
+        }
+        assertEquals(1, replica.getSecretValueCalls());
+
+        primary.setLatency(Duration.ofSeconds(2));
+        replica.setLatency(Duration.ZERO);
+        long start = System.nanoTime();
+        assertEquals(PAYLOAD, getSecretValue().secretString());
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+        assertEquals(2, replica.getSecretValueCalls());
+        // the primary call runs on a thread of its own, which a busy machine may not have started yet
+        assertTrue(eventually(() -> primary.getSecretValueCalls() == 12));
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private RegionalSecretFetcher createFetcher(int hedgePercentile) {
+        return new RegionalSecretFetcher(Arrays.asList(
+                new RegionalSecretFetcher.Region("primary", new SyncSecretFetcher(primary)),
+                new RegionalSecretFetcher.Region("replica", new SyncSecretFetcher(replica))), hedgePercentile);
+    }
+
+    private GetSecretValueResponse getSecretValue() {
+        return fetcher.getSecretValue(GetSecretValueRequest.builder().secretId(SECRET_NAME).build()).join();
+    }
+}
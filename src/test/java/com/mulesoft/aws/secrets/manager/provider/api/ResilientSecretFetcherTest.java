@@ -0,0 +1,126 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The circuit breaker opens after failures, reopens when its trial call fails and closes once AWS answers again;
+ * throttling alone never opens it.
+ */
+public class ResilientSecretFetcherTest {
+
+    private static final String SECRET_NAME = "test/secret";
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    private InMemorySecretsManagerClient client;
+
+    private ResilientSecretFetcher fetcher;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, InMemorySecretsManagerClient.jsonPayload(1));
+        ResilienceSettings settings = new ResilienceSettings(2, Duration.ofMillis(1), Duration.ofMillis(1), 0, 1,
+                OPEN_DURATION);
+        fetcher = new ResilientSecretFetcher(new SyncSecretFetcher(client), settings, new ProviderStatistics());
+    }
+
+    @After
+    public void tearDown() {
+        fetcher.close();
+    }
+
+    @Test
+    public void failedTrialReopensAndLaterTrialCloses() throws Exception {
+        // the first call and its two retries fail, opening the breaker
+        client.failNextCalls(4, 503, "ServiceUnavailable");
+        assertUnavailable();
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getCircuitBreakerState());
+        assertEquals(3, client.getSecretValueCalls());
+
+        // while open, calls fail without reaching AWS
+        assertUnavailable();
+        assertEquals(3, client.getSecretValueCalls());
+
+        // the trial call fails once and is not retried
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        assertUnavailable();
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getCircuitBreakerState());
+        assertEquals(4, client.getSecretValueCalls());
+
+        // the next trial succeeds and calls resume
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        getSecretValue();
+        assertEquals(CircuitBreaker.State.CLOSED, fetcher.getCircuitBreakerState());
+        getSecretValue();
+        assertEquals(6, client.getSecretValueCalls());
+    }
+
+    @Test
+    public void answeredErrorsDoNotOpen() {
+        client.failNextCalls(3, 400, "AccessDeniedException");
+        for (int i = 0; i < 3; i++) {
+            try {
+                getSecretValue();
+                fail("Expected the denied access to be passed through");
+            } catch (CompletionException e) {
+                assertTrue(!(e.getCause() instanceof SecretsManagerUnavailableException));
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, fetcher.getCircuitBreakerState());
+        assertEquals(3, client.getSecretValueCalls());
+    }
+
+    @Test
+    public void throttlingDoesNotOpen() {
+        client.throttleNextCalls(Integer.MAX_VALUE);
+        for (int i = 0; i < 3; i++) {
+            assertUnavailable();
+            assertEquals(CircuitBreaker.State.CLOSED, fetcher.getCircuitBreakerState());
+        }
+        // every call still reached AWS, with its two retries
+        assertEquals(9, client.getSecretValueCalls());
+
+        client.throttleNextCalls(0);
+        getSecretValue();
+        assertEquals(10, client.getSecretValueCalls());
+    }
+
+    @Test
+    public void throttledTrialCloses() throws Exception {
+        client.failNextCalls(3, 503, "ServiceUnavailable");
+        assertUnavailable();
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getCircuitBreakerState());
+
+        // AWS answers the trial, if only to throttle it, so calls resume
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        client.throttleNextCalls(1);
+        assertUnavailable();
+        assertEquals(CircuitBreaker.State.CLOSED, fetcher.getCircuitBreakerState());
+        getSecretValue();
+        assertEquals(5, client.getSecretValueCalls());
+    }
+
+    private void getSecretValue() {
+        fetcher.getSecretValue(GetSecretValueRequest.builder().secretId(SECRET_NAME).build()).join();
+    }
+
+    private void assertUnavailable() {
+        try {
+            getSecretValue();
+            fail("Expected AWS SM to be unavailable");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof SecretsManagerUnavailableException);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The factory accepts a role connection on top of access keys or of the default provider chain, and assumes the role,
+ * first and on every refresh, through the STS client that times the AssumeRole calls.
+ */
+public class RoleConnectionTest {
+
+    private static final String SECRET_NAME = "role-connection/config";
+
+    private static final String ROLE_ARN = "arn:aws:iam::000000000000:role/role-connection-test";
+
+    private LocalSecretsManagerServer server;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalSecretsManagerServer();
+        server.putSecretString(SECRET_NAME, "{\"password\": \"secret\"}");
+    }
+
+    @After
+    public void tearDown() {
+        if (provider != null) {
+            provider.dispose();
+        }
+        server.close();
+    }
+
+    @Test
+    public void roleOnTopOfAccessKeysRefreshesThroughTheTimedStsClient() throws Exception {
+        // credentials expiring within the SDK's refresh margin are renewed whenever they are used
+        server.setCredentialLifetime(Duration.ofSeconds(30));
+        Map<String, String> basicConnection = new HashMap<>();
+        basicConnection.put(AWS_ACCESS_KEY, "AKIAROLETEST");
+        basicConnection.put(AWS_SECRET_KEY, "role-test");
+        provider = createProvider(basicConnection, "false");
+
+        assertEquals("secret", lookup("password"));
+        ProviderStatisticsMXBean statistics = statistics();
+        assertTrue(eventually(() -> statistics.getAssumeRoleCalls() > 0));
+        long assumeRoleCalls = statistics.getAssumeRoleCalls();
+
+        assertEquals("secret", lookup(REAL_TIME_PREFIX + "password"));
+        assertTrue(eventually(() -> statistics.getAssumeRoleCalls() > assumeRoleCalls));
+        assertTrue(server.assumeRoleCalls() >= statistics.getAssumeRoleCalls());
+    }
+
+    @Test
+    public void roleOnTopOfTheDefaultChainIsAccepted() {
+        System.setProperty("aws.accessKeyId", "AKIAROLETEST");
+        System.setProperty("aws.secretAccessKey", "role-test");
+        try {
+            provider = createProvider(new HashMap<>(), "true");
+
+            assertEquals("secret", lookup("password"));
+            assertTrue(server.assumeRoleCalls() > 0);
+        } finally {
+            System.clearProperty("aws.accessKeyId");
+            System.clearProperty("aws.secretAccessKey");
+        }
+    }
+
+    private AWSSecretsManagerConfigurationPropertiesProvider createProvider(Map<String, String> basicConnection,
+                                                                            String useDefaultProviderChain) {
+        Map<String, String> secretsManager = new HashMap<>();
+        secretsManager.put(AWSSecretsManagerConfigurationPropertiesConstants.SECRET_NAME, SECRET_NAME);
+        basicConnection.put(AWS_REGION, "us-east-1");
+        Map<String, String> roleConnection = new HashMap<>();
+        roleConnection.put(AWS_ROLE_ARN, ROLE_ARN);
+        Map<String, String> advancedConnection = new HashMap<>();
+        advancedConnection.put(AWS_CUSTOM_SERVICE_ENDPOINT, server.getEndpoint().toString());
+        advancedConnection.put(AWS_USE_DEFAULT_PROVIDER_CHAIN, useDefaultProviderChain);
+
+        Map<String, Map<String, String>> groups = new LinkedHashMap<>();
+        groups.put(SECRETS_MANAGER_PARAMETER_GROUP_NAME, secretsManager);
+        groups.put(AWS_BASIC_CONNECTION_PARAMETER_GROUP_NAME, basicConnection);
+        groups.put(AWS_ROLE_CONNECTION_PARAMETER_GROUP_NAME, roleConnection);
+        groups.put(AWS_ADVANCED_CONNECTION_PARAMETER_GROUP_NAME, advancedConnection);
+        AWSSecretsManagerConfigurationPropertiesProvider created = (AWSSecretsManagerConfigurationPropertiesProvider)
+                new AWSSecretsManagerConfigurationPropertiesProviderFactory()
+                        .createProvider(new MapConfigurationParameters(groups), null);
+        assertNotNull(created);
+        return created;
+    }
+
+    // the statistics the factory registered for the provider, read as a monitoring client would
+    private static ProviderStatisticsMXBean statistics() throws Exception {
+        Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName(
+                ProviderStatistics.JMX_DOMAIN + ":type=PropertiesProvider,secret=" + ObjectName.quote(SECRET_NAME) + ",*"), null);
+        assertEquals(1, names.size());
+        return JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), names.iterator().next(),
+                ProviderStatisticsMXBean.class);
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
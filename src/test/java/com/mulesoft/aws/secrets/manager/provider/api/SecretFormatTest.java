@@ -0,0 +1,129 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Every format exposes the keys of its layout, and full reads and single-key extractions agree on every key,
+ * duplicated and colliding keys included.
+ */
+public class SecretFormatTest {
+
+    @Test
+    public void repeatedKeyTakesLastValue() throws IOException {
+        assertSameValue(SecretFormat.JSON, "{\"password\": \"first\", \"user\": \"app\", \"password\": \"last\"}",
+                "password", "last");
+    }
+
+    @Test
+    public void nestedObjectAfterDottedKeyWins() throws IOException {
+        assertSameValue(SecretFormat.JSON, "{\"db.password\": \"dotted\", \"db\": {\"password\": \"nested\"}}",
+                "db.password", "nested");
+    }
+
+    @Test
+    public void dottedKeyAfterNestedObjectWins() throws IOException {
+        assertSameValue(SecretFormat.JSON, "{\"db\": {\"password\": \"nested\"}, \"db.password\": \"dotted\"}",
+                "db.password", "dotted");
+    }
+
+    @Test
+    public void arrayElementsAndNullsAreFlattened() throws IOException {
+        String document = "{\"hosts\": [\"a\", {\"name\": \"b\"}], \"empty\": null}";
+        assertSameValue(SecretFormat.JSON, document, "hosts[0]", "a");
+        assertSameValue(SecretFormat.JSON, document, "hosts[1].name", "b");
+        assertSameValue(SecretFormat.JSON, document, "empty", null);
+    }
+
+    @Test
+    public void yamlFollowsTheSameRule() throws IOException {
+        assertSameValue(SecretFormat.YAML, "db.password: dotted\ndb:\n  password: nested\n", "db.password", "nested");
+    }
+
+    @Test
+    public void nestedJsonExposesTheValueAndItsKeys() throws IOException {
+        CompactSecretValues values = SecretFormat.NESTED_JSON.read(SecretPayload.ofDocument(null, SecretFormat.NESTED_JSON,
+                "{\"db\": \"{\\\"password\\\": \\\"x\\\"}\", \"note\": \"{not json\"}"));
+
+        assertEquals("{\"password\": \"x\"}", values.get("db"));
+        assertEquals("x", values.get("db.password"));
+        assertEquals("{not json", values.get("note"));
+        assertEquals(3, values.size());
+    }
+
+    @Test
+    public void propertiesAreReadAsUtf8() throws IOException {
+        String document = "# comment\nuser=app\npassword = s\u00e9cret\nurl=jdbc:postgresql://db:5432/app\n";
+        for (SecretPayload payload : new SecretPayload[]{
+                SecretPayload.ofDocument(null, SecretFormat.PROPERTIES, document),
+                SecretPayload.ofDocument(null, SecretFormat.PROPERTIES, ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)))}) {
+            CompactSecretValues values = SecretFormat.PROPERTIES.read(payload);
+            assertEquals("app", values.get("user"));
+            assertEquals("s\u00e9cret", values.get("password"));
+            assertEquals("jdbc:postgresql://db:5432/app", values.get("url"));
+            assertEquals(3, values.size());
+        }
+    }
+
+    @Test
+    public void rawTextIsASingleValue() throws IOException {
+        String pem = "-----BEGIN CERTIFICATE-----\nMIIB\n-----END CERTIFICATE-----\n";
+        assertEquals(pem, SecretFormat.RAW.read(SecretPayload.ofDocument(null, SecretFormat.RAW, pem))
+                .get(SecretFormat.RAW_VALUE_KEY));
+        assertEquals(pem, SecretFormat.RAW.read(SecretPayload.ofDocument(null, SecretFormat.RAW,
+                ByteBuffer.wrap(pem.getBytes(StandardCharsets.UTF_8)))).get(SecretFormat.RAW_VALUE_KEY));
+    }
+
+    @Test
+    public void rawBinaryIsBase64EncodedUnlessUtf8() throws IOException {
+        byte[] keystore = {(byte) 0xfe, (byte) 0xed, (byte) 0xfe, (byte) 0xed, 0, 0, 0, 2};
+        CompactSecretValues values = SecretFormat.RAW.read(
+                SecretPayload.ofDocument(null, SecretFormat.RAW, ByteBuffer.wrap(keystore)));
+
+        assertEquals(Base64.getEncoder().encodeToString(keystore), values.get(SecretFormat.RAW_VALUE_KEY));
+        assertEquals(1, values.size());
+    }
+
+    @Test
+    public void onlyTreeFormatsExtractSingleKeys() throws IOException {
+        assertFalse(SecretFormat.NESTED_JSON.canExtract());
+        assertFalse(SecretFormat.PROPERTIES.canExtract());
+        assertFalse(SecretFormat.RAW.canExtract());
+        try {
+            SecretFormat.PROPERTIES.extract(SecretPayload.ofDocument(null, SecretFormat.PROPERTIES, "user=app"), "user");
+            fail("Expected PROPERTIES to refuse single-key lookups");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedDocumentIsInvalid() throws IOException {
+        SecretFormat.JSON.validate(SecretPayload.ofDocument(null, "{\"password\": {\"value\": \"x\""));
+    }
+
+    private static void assertSameValue(SecretFormat format, String document, String key, String expected)
+            throws IOException {
+        SecretPayload text = SecretPayload.ofDocument(null, format, document);
+        SecretPayload bytes = SecretPayload.ofDocument(null, format,
+                ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+        if (expected == null) {
+            assertNull(format.read(text).get(key));
+            assertNull(format.extract(text, key));
+            return;
+        }
+        assertEquals(expected, format.read(text).get(key));
+        assertEquals(expected, format.read(bytes).get(key));
+        assertEquals(expected, format.extract(text, key));
+        assertEquals(expected, format.extract(bytes, key));
+        format.validate(text);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent lookups of a secret that is not loaded share a single remote call.
+ */
+public class SingleFlightTest {
+
+    private static final String SECRET_NAME = "test/secret";
+
+    private static final int THREADS = 32;
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, InMemorySecretsManagerClient.jsonPayload(THREADS));
+        // long enough for every thread to miss while the first call is still in flight
+        client.setLatency(Duration.ofMillis(200));
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        provider.dispose();
+    }
+
+    @Test
+    public void concurrentColdMissesMakeOneCall() throws Exception {
+        List<String> values = resolveConcurrently(i -> AWS_SECRETS_PREFIX + "key" + i);
+
+        assertEquals(1, client.getSecretValueCalls());
+        for (int i = 0; i < THREADS; i++) {
+            assertTrue(values.get(i).startsWith("value-" + i + "-"));
+        }
+    }
+
+    @Test
+    public void concurrentRealTimeLookupsMakeOneCallPerRotation() throws Exception {
+        resolveConcurrently(i -> AWS_SECRETS_PREFIX + "key" + i);
+        client.rotate(SECRET_NAME);
+
+        resolveConcurrently(i -> AWS_SECRETS_PREFIX + REAL_TIME_PREFIX + "key" + i);
+
+        assertEquals(1, client.describeSecretCalls());
+        assertEquals(2, client.getSecretValueCalls());
+    }
+
+    private List<String> resolveConcurrently(IntFunction<String> key) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> lookups = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String property = key.apply(i);
+            lookups.add(executor.submit(() -> {
+                start.await();
+                return provider.getConfigurationProperty(property).map(p -> (String) p.getRawValue()).orElse(null);
+            }));
+        }
+        start.countDown();
+        List<String> values = new ArrayList<>();
+        for (Future<String> lookup : lookups) {
+            values.add(lookup.get(10, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+}
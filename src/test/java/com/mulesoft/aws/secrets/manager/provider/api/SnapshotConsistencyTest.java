@@ -0,0 +1,110 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Readers racing with refreshes always see a whole version: related keys come from the same version, values are
+ * never missing, and the generation a reader sees never goes back.
+ */
+public class SnapshotConsistencyTest {
+
+    private static final String SECRET_NAME = "app/credentials";
+
+    private static final int READERS = 8;
+
+    private static final int VERSIONS = 200;
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, credentials(0));
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+        executor = Executors.newFixedThreadPool(READERS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        provider.dispose();
+    }
+
+    @Test
+    public void readersSeeWholeVersionsDuringRefreshes() throws Exception {
+        assertNotNull(lookup("user"));
+        AtomicBoolean refreshing = new AtomicBoolean(true);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            readers.add(executor.submit(() -> read(refreshing)));
+        }
+
+        for (int version = 1; version <= VERSIONS; version++) {
+            client.putSecretString(SECRET_NAME, credentials(version));
+            // a real-time lookup publishes the new version before returning
+            assertEquals("password-" + version, lookup(REAL_TIME_PREFIX + "password"));
+        }
+        refreshing.set(false);
+
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get(10, TimeUnit.SECONDS) > 0);
+        }
+        assertEquals("user-" + VERSIONS, lookup("user"));
+    }
+
+    /**
+     * Reads the credentials until the refreshes are over, checking every read.
+     *
+     * @return the number of reads
+     */
+    private int read(AtomicBoolean refreshing) {
+        long lastGeneration = -1;
+        int reads = 0;
+        while (refreshing.get()) {
+            long[] generation = new long[1];
+            String credentials = provider.readSnapshot(SECRET_NAME, snapshot -> {
+                generation[0] = snapshot.getGeneration();
+                return snapshot.get("user") + ":" + snapshot.get("password");
+            });
+            String version = credentials.substring("user-".length(), credentials.indexOf(':'));
+            assertEquals("user-" + version + ":password-" + version, credentials);
+            assertTrue("Generation went back from " + lastGeneration + " to " + generation[0],
+                    generation[0] >= lastGeneration);
+            lastGeneration = generation[0];
+            // lookups through the provider never find the key missing while a version is replaced
+            assertNotNull(lookup("password"));
+            reads++;
+        }
+        return reads;
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+
+    private static String credentials(int version) {
+        return "{\"user\": \"user-" + version + "\", \"password\": \"password-" + version + "\"}";
+    }
+}
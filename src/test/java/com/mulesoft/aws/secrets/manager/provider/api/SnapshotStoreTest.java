@@ -0,0 +1,63 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Stored copies are only restored for the same secret of the same source.
+ */
+public class SnapshotStoreTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoresSameSource() throws Exception {
+        SnapshotStore store = newStore().forSource("us-east-1|https://secretsmanager.us-east-1.amazonaws.com|a");
+        store.save(SECRET_NAME, snapshot("secret"));
+
+        SecretSnapshot restored = store.load(SECRET_NAME);
+
+        assertEquals("v1", restored.getVersionId());
+        assertEquals("secret", restored.get("password"));
+    }
+
+    @Test
+    public void keepsSourcesApart() throws Exception {
+        SnapshotStore store = newStore();
+        SnapshotStore east = store.forSource("us-east-1|https://secretsmanager.us-east-1.amazonaws.com|a");
+        SnapshotStore west = store.forSource("us-west-2|https://secretsmanager.us-west-2.amazonaws.com|a");
+        SnapshotStore otherAccount = store.forSource("us-east-1|https://secretsmanager.us-east-1.amazonaws.com|b");
+        east.save(SECRET_NAME, snapshot("east"));
+        west.save(SECRET_NAME, snapshot("west"));
+
+        assertEquals("east", east.load(SECRET_NAME).get("password"));
+        assertEquals("west", west.load(SECRET_NAME).get("password"));
+        assertNull(otherAccount.load(SECRET_NAME));
+        assertNull(east.forSource(ParameterStoreBackend.NAME).load(SECRET_NAME));
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private SnapshotStore newStore() {
+        return new SnapshotStore(folder.getRoot().toPath(), new SecretKeySpec(new byte[16], "AES"), Duration.ofHours(1));
+    }
+
+    private static SecretSnapshot snapshot(String password) {
+        return new SecretSnapshot(1, "v1", Collections.singletonMap("password", password), System.nanoTime());
+    }
+}
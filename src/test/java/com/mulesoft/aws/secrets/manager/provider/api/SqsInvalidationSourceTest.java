@@ -0,0 +1,148 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Change events read from a queue reach every subscriber of every source reading it, and refresh the provider.
+ */
+public class SqsInvalidationSourceTest {
+
+    private static final String QUEUE_URL = "http://localhost:9324/000000000000/secret-changes";
+
+    // bounds the long poll to a second, so that closed sources are noticed quickly
+    private static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(2);
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    private InMemorySqsClient.Queue queue;
+
+    @Before
+    public void setUp() {
+        queue = new InMemorySqsClient.Queue();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    public void sourcesSharingQueueEachSeeEveryEvent() throws Exception {
+        BlockingQueue<String> first = subscribe(createSource());
+        BlockingQueue<String> second = subscribe(createSource());
+
+        for (int i = 0; i < 5; i++) {
+            queue.send("{\"secretId\": \"secret-" + i + "\"}");
+        }
+
+        assertEquals(5, take(first, 5).size());
+        assertEquals(5, take(second, 5).size());
+        // messages are deleted once their events are delivered
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.deletedMessages() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(5, queue.deletedMessages());
+    }
+
+    @Test
+    public void closedSourceHandsPollingOver() throws Exception {
+        SqsInvalidationSource closing = createSource();
+        BlockingQueue<String> closed = subscribe(closing);
+        BlockingQueue<String> remaining = subscribe(createSource());
+
+        closing.close();
+        queue.send("{\"secretId\": \"app/config\"}");
+
+        assertEquals("app/config", remaining.poll(5, TimeUnit.SECONDS));
+        assertNull(closed.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void providerReloadsChangedSecretWithoutCaching() throws Exception {
+        InMemorySecretsManagerClient secretsClient = new InMemorySecretsManagerClient();
+        secretsClient.putSecretString("app/config", "{\"password\": \"before\"}");
+        AWSSecretsManagerConfigurationPropertiesProvider provider =
+                new AWSSecretsManagerConfigurationPropertiesProvider(secretsClient, "app/config");
+        resources.add(provider::dispose);
+        assertEquals("before", lookup(provider, "password"));
+        provider.listenForInvalidations(createSource());
+
+        secretsClient.putSecretString("app/config", "{\"password\": \"after\"}");
+        queue.send("{\"source\": \"aws.secretsmanager\", \"detail-type\": \"AWS API Call via CloudTrail\","
+                + " \"detail\": {\"eventName\": \"PutSecretValue\", \"requestParameters\": {\"secretId\": \"app/config\"}}}");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!"after".equals(lookup(provider, "password")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("after", lookup(provider, "password"));
+        assertEquals(2, secretsClient.getSecretValueCalls());
+    }
+
+    @Test
+    public void parsesChangeEvents() {
+        assertEquals("app/config", SqsInvalidationSource.parseSecretId("{\"source\": \"aws.secretsmanager\","
+                + " \"detail\": {\"eventName\": \"RotationSucceeded\", \"additionalEventData\": {\"SecretId\": \"app/config\"}}}"));
+        assertEquals("/app/db/password", SqsInvalidationSource.parseSecretId("{\"source\": \"aws.ssm\","
+                + " \"detail-type\": \"Parameter Store Change\", \"detail\": {\"name\": \"/app/db/password\"}}"));
+        assertEquals("app/config", SqsInvalidationSource.parseSecretId("{\"Type\": \"Notification\","
+                + " \"Message\": \"{\\\"secretId\\\": \\\"app/config\\\"}\"}"));
+        assertNull(SqsInvalidationSource.parseSecretId("{\"source\": \"aws.secretsmanager\","
+                + " \"detail\": {\"eventName\": \"GetSecretValue\", \"requestParameters\": {\"secretId\": \"app/config\"}}}"));
+        assertNull(SqsInvalidationSource.parseSecretId("not json"));
+    }
+
+    /**
+     * Creates a source with a client of its own, as a provider on a connection of its own would.
+     */
+    private SqsInvalidationSource createSource() {
+        InMemorySqsClient client = new InMemorySqsClient(queue);
+        SqsInvalidationSource source = new SqsInvalidationSource(client, QUEUE_URL, SOCKET_TIMEOUT);
+        // closed in the order of a connection: the source, then its client
+        resources.add(0, client);
+        resources.add(0, source);
+        return source;
+    }
+
+    private static BlockingQueue<String> subscribe(SqsInvalidationSource source) {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        source.subscribe(received::add);
+        return received;
+    }
+
+    private static Set<String> take(BlockingQueue<String> received, int count) throws InterruptedException {
+        Set<String> secretIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            String secretId = received.poll(5, TimeUnit.SECONDS);
+            if (secretId == null) {
+                break;
+            }
+            secretIds.add(secretId);
+        }
+        return secretIds;
+    }
+
+    private static String lookup(AWSSecretsManagerConfigurationPropertiesProvider provider, String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
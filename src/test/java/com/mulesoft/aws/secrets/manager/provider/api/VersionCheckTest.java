@@ -0,0 +1,73 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.AWS_SECRETS_PREFIX;
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.REAL_TIME_PREFIX;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Reloads only download the secret when its AWSCURRENT version changed, and the hit, miss and skip counters
+ * account for every lookup.
+ */
+public class VersionCheckTest {
+
+    private static final String SECRET_NAME = "app/config";
+
+    private InMemorySecretsManagerClient client;
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @Before
+    public void setUp() {
+        client = new InMemorySecretsManagerClient();
+        client.putSecretString(SECRET_NAME, "{\"user\": \"app\", \"password\": \"secret\"}");
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(client, SECRET_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        provider.dispose();
+    }
+
+    @Test
+    public void unchangedVersionSkipsTheDownload() {
+        assertEquals("app", lookup("user"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("secret", lookup(REAL_TIME_PREFIX + "password"));
+        }
+        assertEquals("secret", lookup("password"));
+
+        assertEquals(1, client.getSecretValueCalls());
+        assertEquals(3, client.describeSecretCalls());
+        SecretCacheStatistics statistics = provider.getCacheStatistics().get(SECRET_NAME);
+        assertEquals(4, statistics.getMisses());
+        assertEquals(1, statistics.getHits());
+        assertEquals(3, statistics.getVersionCheckSkips());
+        assertEquals(1, statistics.getFetches());
+    }
+
+    @Test
+    public void rotatedVersionIsDownloaded() {
+        assertEquals("secret", lookup("password"));
+        long generation = provider.getSnapshot(SECRET_NAME).getGeneration();
+
+        client.rotate(SECRET_NAME);
+        assertEquals("secret", lookup(REAL_TIME_PREFIX + "password"));
+
+        assertEquals(2, client.getSecretValueCalls());
+        assertEquals(1, client.describeSecretCalls());
+        assertEquals(generation + 1, provider.getSnapshot(SECRET_NAME).getGeneration());
+        SecretCacheStatistics statistics = provider.getCacheStatistics().get(SECRET_NAME);
+        assertEquals(0, statistics.getVersionCheckSkips());
+        assertEquals(2, statistics.getFetches());
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,126 @@
+package com.mulesoft.aws.secrets.manager.provider.api;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static com.mulesoft.aws.secrets.manager.provider.api.AWSSecretsManagerConfigurationPropertiesConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A provider built with a warm-up executor returns before its secrets are loaded, loads them in parallel, and its
+ * first lookups join the loads in flight; the factory reports the duration of every startup phase.
+ */
+public class WarmUpTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(300);
+
+    private final ExecutorService warmUpExecutor = Executors.newFixedThreadPool(4);
+
+    private AWSSecretsManagerConfigurationPropertiesProvider provider;
+
+    @After
+    public void tearDown() {
+        if (provider != null) {
+            provider.dispose();
+        }
+        warmUpExecutor.shutdownNow();
+    }
+
+    @Test
+    public void secretsLoadInParallelAfterTheProviderIsReturned() {
+        InMemorySecretsManagerClient client = new InMemorySecretsManagerClient();
+        for (int i = 0; i < 4; i++) {
+            client.putSecretString("secret" + i, "{\"key\": \"value" + i + "\"}");
+        }
+        client.setLatency(LATENCY);
+        ProviderStatistics statistics = new ProviderStatistics();
+
+        long start = System.nanoTime();
+        provider = new AWSSecretsManagerConfigurationPropertiesProvider(
+                new SecretsManagerBackend(new SyncSecretFetcher(client)),
+                Arrays.asList("secret0", "secret1", "secret2", "secret3"), null, Collections.emptyList(),
+                SecretCacheSettings.disabled(), null, statistics, warmUpExecutor);
+        long returned = System.nanoTime() - start;
+
+        assertTrue("Construction took " + Duration.ofNanos(returned).toMillis() + " ms", returned < LATENCY.toNanos());
+        assertEquals("value3", lookup("secret3/key"));
+        provider.getWarmUp().join();
+        long warmedUp = System.nanoTime() - start;
+
+        assertTrue("Warm-up took " + Duration.ofNanos(warmedUp).toMillis() + " ms",
+                warmedUp < LATENCY.multipliedBy(3).toNanos());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("value" + i, lookup("secret" + i + "/key"));
+        }
+        assertEquals(4, client.getSecretValueCalls());
+        assertTrue(statistics.getStartupPhaseMillis().containsKey("secrets"));
+    }
+
+    @Test
+    public void factoryReportsEveryStartupPhase() throws Exception {
+        try (LocalSecretsManagerServer server = new LocalSecretsManagerServer()) {
+            server.putSecretString("warm-up/config", "{\"password\": \"secret\"}");
+            Map<String, String> secretsManager = new HashMap<>();
+            secretsManager.put(SECRET_NAME, "warm-up/config");
+            Map<String, String> basicConnection = new HashMap<>();
+            basicConnection.put(AWS_REGION, "us-east-1");
+            basicConnection.put(AWS_ACCESS_KEY, "AKIAWARMUPTEST");
+            basicConnection.put(AWS_SECRET_KEY, "warm-up-test");
+            Map<String, String> advancedConnection = new HashMap<>();
+            advancedConnection.put(AWS_CUSTOM_SERVICE_ENDPOINT, server.getEndpoint().toString());
+            Map<String, Map<String, String>> groups = new LinkedHashMap<>();
+            groups.put(SECRETS_MANAGER_PARAMETER_GROUP_NAME, secretsManager);
+            groups.put(AWS_BASIC_CONNECTION_PARAMETER_GROUP_NAME, basicConnection);
+            groups.put(AWS_ADVANCED_CONNECTION_PARAMETER_GROUP_NAME, advancedConnection);
+
+            provider = (AWSSecretsManagerConfigurationPropertiesProvider) new AWSSecretsManagerConfigurationPropertiesProviderFactory()
+                    .createProvider(new MapConfigurationParameters(groups), null);
+            assertNotNull(provider);
+
+            assertEquals("secret", lookup("password"));
+            Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName(
+                    ProviderStatistics.JMX_DOMAIN + ":type=PropertiesProvider,secret=" + ObjectName.quote("warm-up/config") + ",*"), null);
+            assertEquals(1, names.size());
+            ProviderStatisticsMXBean statistics = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                    names.iterator().next(), ProviderStatisticsMXBean.class);
+            // the total is recorded once the credentials are resolved and the secrets loaded
+            assertTrue(eventually(() -> statistics.getStartupPhaseMillis().containsKey("total")));
+            assertTrue(statistics.getStartupPhaseMillis().keySet().containsAll(
+                    Arrays.asList("clients", "credentials", "secrets", "total")));
+            assertEquals(1, server.getSecretValueCalls());
+        }
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private String lookup(String key) {
+        return provider.getConfigurationProperty(AWS_SECRETS_PREFIX + key)
+                .map(property -> (String) property.getRawValue())
+                .orElse(null);
+    }
+}